@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency histogram.
+// Records durations in nanoseconds into power-of-two buckets,
+// so that recording is constant time, lock-free and safe to call from many threads.
+// Percentiles are reported as the upper bound of the bucket they fall in,
+// which is at most a factor of two above the exact value.
+
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalNanos = new AtomicLong();
+        this.maxNanos = new AtomicLong();
+    }
+
+    // record one duration in nanoseconds
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // number of recorded durations
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    // mean of the recorded durations in nanoseconds; 0 if nothing was recorded
+    public long meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : totalNanos.get() / count;
+    }
+
+    // largest recorded duration in nanoseconds
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    // upper bound in nanoseconds of the q-th quantile (0 < q <= 1); 0 if nothing was recorded
+    public long percentileNanos(double q) {
+        if (q <= 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in (0, 1]");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    // summary in microseconds, e.g. "count=10 mean=3us p50=4us p90=8us p99=16us max=12us"
+    public String summary() {
+        return "count=" + count()
+                + " mean=" + meanNanos() / 1000 + "us"
+                + " p50=" + percentileNanos(0.50) / 1000 + "us"
+                + " p90=" + percentileNanos(0.90) / 1000 + "us"
+                + " p99=" + percentileNanos(0.99) / 1000 + "us"
+                + " max=" + maxNanos() / 1000 + "us";
+    }
+
+    // a copy of the durations recorded so far
+    LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, counts.get(i));
+        }
+        copy.totalNanos.set(totalNanos.get());
+        copy.maxNanos.set(maxNanos.get());
+        return copy;
+    }
+
+    // bucket i holds durations in [2^(i-1), 2^i), bucket 0 holds 0
+    private static int bucketOf(long nanos) {
+        return 64 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
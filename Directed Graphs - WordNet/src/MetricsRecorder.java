@@ -0,0 +1,56 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Metrics recorder.
+// The live, opt-in counters behind QueryMetrics and SearchMetrics:
+// SAP and WordNet record into it on their hot paths, and hand out immutable snapshots of it.
+// All counters are safe to update from many threads.
+
+class MetricsRecorder {
+
+    private final LongAdder queries;
+    private final LongAdder verticesExpanded;
+    private final LongAdder frontierAtTermination;
+    private final LongAdder validationNanos;
+    private final LongAdder searchNanos;
+    private final LatencyHistogram latency;
+
+    MetricsRecorder() {
+        this.queries = new LongAdder();
+        this.verticesExpanded = new LongAdder();
+        this.frontierAtTermination = new LongAdder();
+        this.validationNanos = new LongAdder();
+        this.searchNanos = new LongAdder();
+        this.latency = new LatencyHistogram();
+    }
+
+    // current time for the given recorder; only reads the clock when metrics are enabled (recorder not null)
+    static long now(MetricsRecorder recorder) {
+        return recorder == null ? 0 : System.nanoTime();
+    }
+
+    // record one query
+    void record(long validation, long search) {
+        queries.increment();
+        validationNanos.add(validation);
+        searchNanos.add(search);
+        latency.record(validation + search);
+    }
+
+    // record one query together with the size of its search
+    void record(long validation, long search, int expanded, int frontier) {
+        record(validation, search);
+        verticesExpanded.add(expanded);
+        frontierAtTermination.add(frontier);
+    }
+
+    // the query counts and times recorded so far
+    QueryMetrics snapshot() {
+        return new QueryMetrics(queries.sum(), validationNanos.sum(), searchNanos.sum(), latency.copy());
+    }
+
+    // the query counts, times and search sizes recorded so far
+    SearchMetrics searchSnapshot() {
+        return new SearchMetrics(queries.sum(), validationNanos.sum(), searchNanos.sum(), latency.copy(),
+                verticesExpanded.sum(), frontierAtTermination.sum());
+    }
+}
@@ -0,0 +1,59 @@
+// Query metrics.
+// An immutable snapshot of the opt-in metrics of WordNet queries:
+// how much of the queries was spent validating their arguments versus searching,
+// and the distribution of query latencies.
+
+public class QueryMetrics {
+
+    private final long queries;
+    private final long validationNanos;
+    private final long searchNanos;
+    private final LatencyHistogram latency;
+
+    // latency must be a copy that is no longer recorded into
+    QueryMetrics(long queries, long validationNanos, long searchNanos, LatencyHistogram latency) {
+        this.queries = queries;
+        this.validationNanos = validationNanos;
+        this.searchNanos = searchNanos;
+        this.latency = latency;
+    }
+
+    // number of recorded queries
+    public long queries() {
+        return queries;
+    }
+
+    // total time spent validating arguments, in nanoseconds
+    public long validationNanos() {
+        return validationNanos;
+    }
+
+    // total time spent searching, in nanoseconds
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    // mean query latency in nanoseconds; 0 if nothing was recorded
+    public long latencyMeanNanos() {
+        return latency.meanNanos();
+    }
+
+    // upper bound in nanoseconds of the q-th quantile (0 < q <= 1) of the query latencies
+    public long latencyPercentileNanos(double q) {
+        return latency.percentileNanos(q);
+    }
+
+    // largest query latency in nanoseconds
+    public long latencyMaxNanos() {
+        return latency.maxNanos();
+    }
+
+    // the metrics as one line, with per-query averages
+    public String summary() {
+        long perQuery = Math.max(queries, 1);
+        return "queries=" + queries
+                + " validation/query=" + validationNanos / perQuery / 1000 + "us"
+                + " search/query=" + searchNanos / perQuery / 1000 + "us"
+                + " latency " + latency.summary();
+    }
+}
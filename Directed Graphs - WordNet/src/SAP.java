@@ -1,4 +1,3 @@
-import edu.princeton.cs.algs4.BreadthFirstDirectedPaths;
 import edu.princeton.cs.algs4.Digraph;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdIn;
@@ -17,11 +16,73 @@ import java.util.HashMap;
 public class SAP {
 
     private final Digraph G;
+    private final int[] depthToRoot;
+    private final int root;
+    private volatile MetricsRecorder metrics;
 
     // constructor takes a digraph (not necessarily a DAG)
     public SAP(Digraph G) {
         checkNotNull(G);
         this.G = new Digraph(G);
+        this.depthToRoot = null;
+        this.root = -1;
+    }
+
+    // constructor for a rooted DAG, given the length of the shortest path from each vertex up to the root.
+    // Since the root is a common ancestor of every pair of vertices, the path through it
+    // bounds every search from above before it starts.
+    // The depths are used for this upper bound rather than as lower bounds to prune with:
+    // a path from x up to an ancestor y is at least depth(x) - depth(y) long, but an ancestor
+    // can be deeper than x (when x has a shorter way to the root), so depths give no lower bound
+    // on the paths through the ancestors of a vertex that is still to be expanded.
+    // The distance of the next vertex in each queue already is such a lower bound,
+    // and the lockstep search stops each side on it.
+    // Wrong depths would give wrong lengths and ancestors, so they are checked: exactly one vertex,
+    // the root, has depth 0 and no outgoing edge, and every other vertex is one deeper than
+    // its shallowest direct ancestor, which makes each depth the length of the shortest path up to the root.
+    SAP(Digraph G, int[] depthToRoot) {
+        checkNotNull(G, depthToRoot);
+        if (depthToRoot.length != G.V()) {
+            throw new IllegalArgumentException("Depths must be given for every vertex in the graph");
+        }
+        this.G = new Digraph(G);
+        this.depthToRoot = depthToRoot.clone();
+        this.root = checkDepths(this.G, this.depthToRoot);
+    }
+
+    // the root of a rooted DAG with the given depths, checking them as described above
+    private static int checkDepths(Digraph G, int[] depthToRoot) {
+        int root = -1;
+        for (int v = 0; v < G.V(); v++) {
+            if (depthToRoot[v] != 0) {
+                continue;
+            }
+            if (root != -1) {
+                throw new IllegalArgumentException("Depths must have exactly one root, but " + root + " and " + v + " have depth 0");
+            }
+            if (G.outdegree(v) != 0) {
+                throw new IllegalArgumentException("Vertex " + v + " has depth 0 but is not a root");
+            }
+            root = v;
+        }
+        if (root == -1) {
+            throw new IllegalArgumentException("Depths must have exactly one root, but no vertex has depth 0");
+        }
+
+        for (int v = 0; v < G.V(); v++) {
+            if (v == root) {
+                continue;
+            }
+            int shallowestAncestor = Integer.MAX_VALUE;
+            for (int w : G.adj(v)) {
+                shallowestAncestor = Math.min(shallowestAncestor, depthToRoot[w]);
+            }
+            if (shallowestAncestor == Integer.MAX_VALUE || depthToRoot[v] != shallowestAncestor + 1) {
+                throw new IllegalArgumentException("Depth " + depthToRoot[v] + " of vertex " + v
+                        + " is not one more than the smallest depth of its direct ancestors");
+            }
+        }
+        return root;
     }
 
     private Map<String, Integer> findShortestAncestralPath(Iterable<Integer> v, Iterable<Integer> w) {
@@ -29,32 +90,76 @@ public class SAP {
         Map<String, Integer> shortestAncestralPath = new HashMap<>();
         shortestAncestralPath.put("shortestCommonAncestor", -1);
         shortestAncestralPath.put("shortestDistance", -1);
+        shortestAncestralPath.put("verticesExpanded", 0);
+        shortestAncestralPath.put("frontierSize", 0);
 
         if (!v.iterator().hasNext() || !w.iterator().hasNext()) {
             return shortestAncestralPath;
         }
 
-        // Performs breadth-first search on graph G from all vertices in v and w respectively.
-        // This gives us shortest paths from any vertex in v (and separately, w) to every other vertex in the graph,
-        // if such paths exist.
-        BreadthFirstDirectedPaths bfsPathsFromV = new BreadthFirstDirectedPaths(G, v);
-        BreadthFirstDirectedPaths bfsPathsFromW = new BreadthFirstDirectedPaths(G, w);
+        // Performs breadth-first search on graph G from all vertices in v and w in lockstep.
+        // distFromV[x] and distFromW[x] hold the distance to x plus one, or 0 if x has not been reached yet.
+        // Each side stops once the next vertex it would expand is at least as far as the shortest
+        // ancestral path found so far, since no path through that vertex can be shorter.
+        int[] distFromV = new int[G.V()];
+        int[] distFromW = new int[G.V()];
+        int[] queueV = new int[G.V()];
+        int[] queueW = new int[G.V()];
+        int headV = 0, tailV = enqueueSources(v, distFromV, queueV);
+        int headW = 0, tailW = enqueueSources(w, distFromW, queueW);
+
         int shortestDistBetweenVandW = Integer.MAX_VALUE;
         int shortestCommonAncestor = -1;
+        int verticesExpanded = 0;
+
+        // In a rooted DAG the path through the root is an ancestral path,
+        // so nothing farther than it needs to be expanded (see the constructor taking depths).
+        if (depthToRoot != null) {
+            shortestDistBetweenVandW = minDepthToRoot(v) + minDepthToRoot(w);
+            shortestCommonAncestor = root;
+        }
+
+        while (true) {
+            boolean isSearchingFromV = headV < tailV && distFromV[queueV[headV]] - 1 < shortestDistBetweenVandW;
+            boolean isSearchingFromW = headW < tailW && distFromW[queueW[headW]] - 1 < shortestDistBetweenVandW;
+            if (!isSearchingFromV && !isSearchingFromW) {
+                break;
+            }
 
-        for (int vertex = 0; vertex < G.V(); vertex++) {
+            if (isSearchingFromV) {
+                int vertex = queueV[headV++];
+                verticesExpanded++;
 
-            // If there exists a path from any vertex in v to the current vertex and
-            // a path from any vertex in w to the current vertex
-            if (bfsPathsFromV.hasPathTo(vertex) && bfsPathsFromW.hasPathTo(vertex)) {
-                int sumOfDists = bfsPathsFromV.distTo(vertex) + bfsPathsFromW.distTo(vertex);
-                if (sumOfDists < shortestDistBetweenVandW) {
-                    shortestDistBetweenVandW = sumOfDists;
-                    shortestCommonAncestor = vertex;
+                // If there exists a path from any vertex in w to the current vertex as well
+                if (distFromW[vertex] != 0) {
+                    int sumOfDists = distFromV[vertex] + distFromW[vertex] - 2;
+                    if (sumOfDists < shortestDistBetweenVandW) {
+                        shortestDistBetweenVandW = sumOfDists;
+                        shortestCommonAncestor = vertex;
+                    }
                 }
+                tailV = enqueueNeighbors(vertex, distFromV, queueV, tailV);
+            }
+
+            if (isSearchingFromW) {
+                int vertex = queueW[headW++];
+                verticesExpanded++;
+
+                // If there exists a path from any vertex in v to the current vertex as well
+                if (distFromV[vertex] != 0) {
+                    int sumOfDists = distFromV[vertex] + distFromW[vertex] - 2;
+                    if (sumOfDists < shortestDistBetweenVandW) {
+                        shortestDistBetweenVandW = sumOfDists;
+                        shortestCommonAncestor = vertex;
+                    }
+                }
+                tailW = enqueueNeighbors(vertex, distFromW, queueW, tailW);
             }
         }
 
+        shortestAncestralPath.put("verticesExpanded", verticesExpanded);
+        shortestAncestralPath.put("frontierSize", (tailV - headV) + (tailW - headW));
+
         if (shortestCommonAncestor != -1) {
             shortestAncestralPath.put("shortestCommonAncestor", shortestCommonAncestor);
             shortestAncestralPath.put("shortestDistance", shortestDistBetweenVandW);
@@ -63,44 +168,108 @@ public class SAP {
         return shortestAncestralPath;
     }
 
+    private int minDepthToRoot(Iterable<Integer> vertices) {
+        int minDepth = Integer.MAX_VALUE;
+        for (int vertex : vertices) {
+            minDepth = Math.min(minDepth, depthToRoot[vertex]);
+        }
+        return minDepth;
+    }
+
+    // mark the sources at distance 0 and put them on the queue; returns the new queue tail
+    private int enqueueSources(Iterable<Integer> sources, int[] distTo, int[] queue) {
+        int tail = 0;
+        for (int source : sources) {
+            if (distTo[source] == 0) {
+                distTo[source] = 1;
+                queue[tail++] = source;
+            }
+        }
+        return tail;
+    }
+
+    // mark the unreached neighbors of vertex and put them on the queue; returns the new queue tail
+    private int enqueueNeighbors(int vertex, int[] distTo, int[] queue, int tail) {
+        for (int neighbor : G.adj(vertex)) {
+            if (distTo[neighbor] == 0) {
+                distTo[neighbor] = distTo[vertex] + 1;
+                queue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    // Runs the search after the arguments have been validated,
+    // and records the query into recorder if metrics were enabled when the query started.
+    private Map<String, Integer> searchAfterValidation(Iterable<Integer> v, Iterable<Integer> w,
+                                                       MetricsRecorder recorder, long validationStart) {
+        long searchStart = MetricsRecorder.now(recorder);
+        Map<String, Integer> shortestAncestralPath = findShortestAncestralPath(v, w);
+
+        if (recorder != null) {
+            recorder.record(searchStart - validationStart, System.nanoTime() - searchStart,
+                    shortestAncestralPath.get("verticesExpanded"), shortestAncestralPath.get("frontierSize"));
+        }
+        return shortestAncestralPath;
+    }
+
     // length of shortest ancestral path between v and w; -1 if no such path
     public int length(int v, int w) {
-        checkNotNull(v, w);
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         validateVertices(v, w);
-        return length(Collections.singletonList(v), Collections.singletonList(w));
+        Map<String, Integer> shortestAncestralPath = searchAfterValidation(
+                Collections.singletonList(v), Collections.singletonList(w), recorder, validationStart);
+        return shortestAncestralPath.get("shortestDistance");
     }
 
     // a common ancestor of v and w that participates in a shortest ancestral path; -1 if no such path
     public int ancestor(int v, int w) {
-        checkNotNull(v, w);
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         validateVertices(v, w);
-        return ancestor(Collections.singletonList(v), Collections.singletonList(w));
+        Map<String, Integer> shortestAncestralPath = searchAfterValidation(
+                Collections.singletonList(v), Collections.singletonList(w), recorder, validationStart);
+        return shortestAncestralPath.get("shortestCommonAncestor");
     }
 
     // length of shortest ancestral path between any vertex in v and any vertex in w; -1 if no such path
     public int length(Iterable<Integer> v, Iterable<Integer> w) {
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         checkNotNull(v, w);
-        checkNotContainNull(v);
-        checkNotContainNull(w);
         validateVertexCollection(v);
         validateVertexCollection(w);
 
-        Map<String, Integer> shortestAncestralPath = findShortestAncestralPath(v, w);
+        Map<String, Integer> shortestAncestralPath = searchAfterValidation(v, w, recorder, validationStart);
         return shortestAncestralPath.get("shortestDistance");
     }
 
     // a common ancestor that participates in shortest ancestral path; -1 if no such path
     public int ancestor(Iterable<Integer> v, Iterable<Integer> w) {
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         checkNotNull(v, w);
-        checkNotContainNull(v);
-        checkNotContainNull(w);
         validateVertexCollection(v);
         validateVertexCollection(w);
 
-        Map<String, Integer> shortestAncestralPath = findShortestAncestralPath(v, w);
+        Map<String, Integer> shortestAncestralPath = searchAfterValidation(v, w, recorder, validationStart);
         return shortestAncestralPath.get("shortestCommonAncestor");
     }
 
+    // start recording query metrics (off by default)
+    public void enableMetrics() {
+        if (this.metrics == null) {
+            this.metrics = new MetricsRecorder();
+        }
+    }
+
+    // a snapshot of the metrics recorded since enableMetrics was called; null if metrics are not enabled
+    public SearchMetrics metrics() {
+        MetricsRecorder recorder = this.metrics;
+        return recorder == null ? null : recorder.searchSnapshot();
+    }
+
     private void checkNotNull(Object... args) {
         for (Object arg : args) {
             if (arg == null) {
@@ -109,22 +278,18 @@ public class SAP {
         }
     }
 
-    private void checkNotContainNull(Iterable<Integer> arg) {
-        for (Integer value : arg) {
-            if (value == null) {
-                throw new IllegalArgumentException("Iterable arguments must not contain a null item");
-            }
-        }
-    }
-
     private void validateVertices(int v, int w) {
         if (v < 0 || v >= G.V() || w < 0 || w >= G.V()) {
             throw new IllegalArgumentException("Arguments must be valid vertices in the graph.");
         }
     }
 
+    // checks for null items and vertices outside the graph in a single pass
     private void validateVertexCollection(Iterable<Integer> v) {
         for (Integer vertex : v) {
+            if (vertex == null) {
+                throw new IllegalArgumentException("Iterable arguments must not contain a null item");
+            }
             if (vertex < 0 || vertex >= G.V()) {
                 throw new IllegalArgumentException("Iterable arguments must contain valid vertices in the graph");
             }
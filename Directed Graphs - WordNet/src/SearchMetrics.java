@@ -0,0 +1,35 @@
+// Search metrics.
+// An immutable snapshot of the opt-in metrics of SAP queries: the query metrics,
+// plus how many vertices the searches expanded and how large their frontiers were when they stopped.
+
+public class SearchMetrics extends QueryMetrics {
+
+    private final long verticesExpanded;
+    private final long frontierAtTermination;
+
+    SearchMetrics(long queries, long validationNanos, long searchNanos, LatencyHistogram latency,
+                  long verticesExpanded, long frontierAtTermination) {
+        super(queries, validationNanos, searchNanos, latency);
+        this.verticesExpanded = verticesExpanded;
+        this.frontierAtTermination = frontierAtTermination;
+    }
+
+    // total vertices expanded over all queries
+    public long verticesExpanded() {
+        return verticesExpanded;
+    }
+
+    // total number of vertices left in the frontiers when the searches stopped
+    public long frontierAtTermination() {
+        return frontierAtTermination;
+    }
+
+    // the metrics as one line, with per-query averages
+    @Override
+    public String summary() {
+        long perQuery = Math.max(queries(), 1);
+        return "expanded/query=" + verticesExpanded / perQuery
+                + " frontier/query=" + frontierAtTermination / perQuery
+                + " " + super.summary();
+    }
+}
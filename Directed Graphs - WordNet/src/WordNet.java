@@ -1,11 +1,17 @@
 import edu.princeton.cs.algs4.Digraph;
-import edu.princeton.cs.algs4.DirectedCycle;
 import edu.princeton.cs.algs4.In;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 // The WordNet digraph.
 // each vertex v is an integer that represents a synset,
@@ -16,44 +22,90 @@ import java.util.HashMap;
 public class WordNet {
 
     private final List<String> synsetData;
+    private final List<String[]> synsetNouns;
     private final Map<String, List<Integer>> nounMap;
+    private final Digraph hypernymDigraph;
+    private final Digraph hyponymDigraph;
     private final SAP sap;
+    private final int[] topologicalOrder;
+    private final int[] depth;
+    private volatile MetricsRecorder metrics;
 
     public WordNet(String synsets, String hypernyms) {
         checkNotNull(synsets, hypernyms);
 
         this.synsetData = new ArrayList<>();
+        this.synsetNouns = new ArrayList<>();
         this.nounMap = new HashMap<>();
 
-        // parse synsets and hypernyms files to create the WordNet digraph
-        parseSynsets(synsets);
-        Digraph wordNetDigraph = parseHypernyms(hypernyms);
-
-        // check if it's a rooted DAG
-        DirectedCycle wordNetCycleChecker = new DirectedCycle(wordNetDigraph);
-        if (wordNetCycleChecker.hasCycle()) {
-            throw new IllegalArgumentException("Input does not represent a DAG as it contains cycles");
-        }
-
-        int roots = 0;
-
-        for (int v = 0; v < wordNetDigraph.V(); v++) {
-            if (!wordNetDigraph.adj(v).iterator().hasNext()) {
-                roots++;
-
-                if (roots > 1) {
-                    throw new IllegalArgumentException("Input does not represent a rooted DAG as it has multiple roots");
+        // parse the synsets file on another thread while the hypernyms file is parsed
+        // and checked to be a rooted DAG on this one
+        CompletableFuture<Void> synsetParsing = CompletableFuture.runAsync(() -> parseSynsets(synsets));
+        List<int[]> hypernymLines;
+        int maxSynsetID = -1;
+        Topology topology;
+        try {
+            hypernymLines = parseHypernyms(hypernyms);
+            for (int[] line : hypernymLines) {
+                for (int synsetID : line) {
+                    maxSynsetID = Math.max(maxSynsetID, synsetID);
                 }
             }
+            topology = sortTopologically(maxSynsetID + 1, hypernymLines);
+        } catch (RuntimeException e) {
+            // do not leave the synsets being parsed on the common pool; report the hypernyms error
+            synsetParsing.exceptionally(ignored -> null).join();
+            throw e;
         }
+        joinSynsetParsing(synsetParsing);
 
+        // synsets that never appear in the hypernyms file have no hypernym, so they are roots too
+        int V = synsetData.size();
+        if (maxSynsetID >= V) {
+            throw new IllegalArgumentException("Hypernyms refer to synset " + maxSynsetID + " that is not in the synsets");
+        }
+        int roots = topology.roots + V - (maxSynsetID + 1);
+        if (roots > 1) {
+            throw new IllegalArgumentException("Input does not represent a rooted DAG as it has multiple roots");
+        }
         if (roots == 0) {
             throw new IllegalArgumentException("Input does not represent a rooted DAG as it has no root");
         }
+        // those synsets come last in the topological order, at depth 0
+        int[] order = Arrays.copyOf(topology.order, V);
+        for (int v = topology.order.length; v < V; v++) {
+            order[v] = v;
+        }
+        this.topologicalOrder = order;
+        this.depth = Arrays.copyOf(topology.depth, V);
+
+        Digraph wordNetDigraph = new Digraph(V);
+        for (int[] line : hypernymLines) {
+            for (int i = 1; i < line.length; i++) {
+                wordNetDigraph.addEdge(line[0], line[i]);
+            }
+        }
+
+        // keep the digraph and its reverse so that nearestNouns can walk
+        // up to hypernyms and back down to hyponyms
+        this.hypernymDigraph = wordNetDigraph;
+        this.hyponymDigraph = wordNetDigraph.reverse();
 
         // construct a new SAP object that can be used to answer queries about
-        // the shortest ancestral path between different nouns in the WordNet
-        this.sap = new SAP(wordNetDigraph);
+        // the shortest ancestral path between different nouns in the WordNet;
+        // the depths give it the path through the root as an upper bound to prune against
+        this.sap = new SAP(wordNetDigraph, depth);
+    }
+
+    private void joinSynsetParsing(CompletableFuture<Void> synsetParsing) {
+        try {
+            synsetParsing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     private void parseSynsets(String synsets) {
@@ -66,26 +118,102 @@ public class WordNet {
             this.synsetData.add(synsetID, synset);
 
             String[] nounsInSynset = line[1].split(" ");
+            this.synsetNouns.add(synsetID, nounsInSynset);
             for (String nounInSynSet : nounsInSynset) {
                 nounMap.computeIfAbsent(nounInSynSet, k -> new ArrayList<>()).add(synsetID);
             }
         }
     }
 
-    private Digraph parseHypernyms(String hypernyms) {
-        Digraph wordNetDigraph = new Digraph(synsetData.size());
+    // each line is a synset id followed by the ids of its hypernyms
+    private List<int[]> parseHypernyms(String hypernyms) {
+        List<int[]> hypernymLines = new ArrayList<>();
         In hypernymsInput = new In(hypernyms);
 
         while (hypernymsInput.hasNextLine()) {
             String[] line = hypernymsInput.readLine().split(",");
-            int synsetID = Integer.parseInt(line[0]);
+            int[] ids = new int[line.length];
+            for (int i = 0; i < line.length; i++) {
+                ids[i] = Integer.parseInt(line[i]);
+                if (ids[i] < 0) {
+                    throw new IllegalArgumentException("Hypernyms refer to synset " + ids[i] + " that is not in the synsets");
+                }
+            }
+            hypernymLines.add(ids);
+        }
+
+        return hypernymLines;
+    }
+
+    // a topological order of the synsets from the roots down, the depth of each synset
+    // (the length of its shortest path up to a root) and the number of roots
+    private static final class Topology {
+        private final int[] order;
+        private final int[] depth;
+        private final int roots;
+
+        Topology(int[] order, int[] depth, int roots) {
+            this.order = order;
+            this.depth = depth;
+            this.roots = roots;
+        }
+    }
+
+    // Checks that the hypernym edges on vertices 0 to V-1 form a DAG, and in the same linear pass
+    // computes a topological order from the roots down, the depth of each synset and the number of roots
+    // (synsets without hypernyms).
+    // This is Kahn's algorithm run against the direction of the edges: a synset is taken
+    // once all of its hypernyms have been taken, so its depth is one more than the smallest
+    // depth among them. Synsets on or below a cycle are never taken.
+    private static Topology sortTopologically(int V, List<int[]> hypernymLines) {
+        int[] hypernymCount = new int[V];
+        int[] hyponymStart = new int[V + 1];
+        for (int[] line : hypernymLines) {
+            hypernymCount[line[0]] += line.length - 1;
+            for (int i = 1; i < line.length; i++) {
+                hyponymStart[line[i] + 1]++;
+            }
+        }
+        for (int v = 0; v < V; v++) {
+            hyponymStart[v + 1] += hyponymStart[v];
+        }
+        int[] hyponyms = new int[hyponymStart[V]];
+        int[] next = Arrays.copyOf(hyponymStart, V);
+        for (int[] line : hypernymLines) {
             for (int i = 1; i < line.length; i++) {
-                int hypernymID = Integer.parseInt(line[i]);
-                wordNetDigraph.addEdge(synsetID, hypernymID);
+                hyponyms[next[line[i]]++] = line[0];
             }
         }
 
-        return wordNetDigraph;
+        int[] order = new int[V];
+        int[] depthToRoot = new int[V];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < V; v++) {
+            if (hypernymCount[v] == 0) {
+                order[tail++] = v;
+            } else {
+                depthToRoot[v] = Integer.MAX_VALUE;
+            }
+        }
+        int roots = tail;
+
+        while (head < tail) {
+            int v = order[head++];
+            for (int i = hyponymStart[v]; i < hyponymStart[v + 1]; i++) {
+                int hyponym = hyponyms[i];
+                depthToRoot[hyponym] = Math.min(depthToRoot[hyponym], depthToRoot[v] + 1);
+                if (--hypernymCount[hyponym] == 0) {
+                    order[tail++] = hyponym;
+                }
+            }
+        }
+
+        if (tail < V) {
+            throw new IllegalArgumentException("Input does not represent a DAG as it contains cycles");
+        }
+
+        return new Topology(order, depthToRoot, roots);
     }
 
     // returns all WordNet nouns
@@ -101,26 +229,148 @@ public class WordNet {
 
     // length of shortest ancestral path between nounA and nounB
     public int distance(String nounA, String nounB) {
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         checkNotNull(nounA, nounB);
         validateNounsInWordNet(nounA, nounB);
 
         List<Integer> idsOfNounA = nounMap.get(nounA);
         List<Integer> idsOfNounB = nounMap.get(nounB);
-        return sap.length(idsOfNounA, idsOfNounB);
+        long searchStart = MetricsRecorder.now(recorder);
+        int distance = sap.length(idsOfNounA, idsOfNounB);
+        recordQuery(recorder, validationStart, searchStart);
+        return distance;
     }
 
     // a synset (second field of synsets.txt) that is the common ancestor of nounA and nounB
     // in a shortest ancestral path
     public String sap(String nounA, String nounB) {
+        MetricsRecorder recorder = this.metrics;
+        long validationStart = MetricsRecorder.now(recorder);
         checkNotNull(nounA, nounB);
         validateNounsInWordNet(nounA, nounB);
 
         List<Integer> idsOfNounA = nounMap.get(nounA);
         List<Integer> idsOfNounB = nounMap.get(nounB);
+        long searchStart = MetricsRecorder.now(recorder);
         String shortestCommonAncestor = synsetData.get(sap.ancestor(idsOfNounA, idsOfNounB));
+        recordQuery(recorder, validationStart, searchStart);
         return shortestCommonAncestor;
     }
 
+    // length of the shortest path from noun up to the root, over all synsets containing noun
+    public int depth(String noun) {
+        checkNotNull(noun);
+        validateNounsInWordNet(noun);
+
+        int minDepth = Integer.MAX_VALUE;
+        for (int synsetID : nounMap.get(noun)) {
+            minDepth = Math.min(minDepth, depth[synsetID]);
+        }
+        return minDepth;
+    }
+
+    // length of the shortest path from the synset up to the root
+    int synsetDepth(int synsetID) {
+        return depth[synsetID];
+    }
+
+    // synset ids in topological order, from the root down;
+    // every synset comes after all of its hypernyms
+    int[] topologicalOrder() {
+        return topologicalOrder.clone();
+    }
+
+    // the k nouns closest to noun by SAP distance, nearest first (ties in no particular order)
+    public Iterable<String> nearestNouns(String noun, int k) {
+        checkNotNull(noun);
+        validateNounsInWordNet(noun);
+        if (k < 0) {
+            throw new IllegalArgumentException("k cannot be negative");
+        }
+
+        Set<String> nearestNouns = new LinkedHashSet<>();
+        if (k == 0) {
+            return nearestNouns;
+        }
+
+        // An ancestral path climbs from a synset of noun to a common ancestor
+        // and then descends to a synset of the other noun.
+        // Breadth-first search over (vertex, direction) states therefore visits synsets
+        // in increasing SAP distance: while climbing we may keep climbing or turn around,
+        // but once descending we may only keep descending.
+        int V = hypernymDigraph.V();
+        boolean[] climbed = new boolean[V];
+        boolean[] descended = new boolean[V];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int id : nounMap.get(noun)) {
+            if (!climbed[id]) {
+                climbed[id] = true;
+                queue.add(id);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            boolean isDescending = state < 0;
+            int v = isDescending ? ~state : state;
+
+            for (String nounInSynset : synsetNouns.get(v)) {
+                if (!nounInSynset.equals(noun)) {
+                    nearestNouns.add(nounInSynset);
+                    if (nearestNouns.size() == k) {
+                        return nearestNouns;
+                    }
+                }
+            }
+
+            if (!isDescending) {
+                for (int hypernym : hypernymDigraph.adj(v)) {
+                    if (!climbed[hypernym]) {
+                        climbed[hypernym] = true;
+                        queue.add(hypernym);
+                    }
+                }
+            }
+            for (int hyponym : hyponymDigraph.adj(v)) {
+                if (!descended[hyponym]) {
+                    descended[hyponym] = true;
+                    queue.add(~hyponym);
+                }
+            }
+        }
+
+        return nearestNouns;
+    }
+
+    // start recording metrics for distance and sap queries, and for the SAP searches behind them (off by default)
+    public void enableMetrics() {
+        sap.enableMetrics();
+        if (this.metrics == null) {
+            this.metrics = new MetricsRecorder();
+        }
+    }
+
+    // a snapshot of the time spent on noun lookups versus SAP searches, and of query latencies;
+    // null if metrics are not enabled
+    public QueryMetrics metrics() {
+        MetricsRecorder recorder = this.metrics;
+        return recorder == null ? null : recorder.snapshot();
+    }
+
+    // a snapshot of the vertices expanded, frontier sizes and search times of the underlying SAP queries;
+    // null if metrics are not enabled
+    public SearchMetrics sapMetrics() {
+        return sap.metrics();
+    }
+
+    // record a query into recorder if metrics were enabled when the query started
+    private static void recordQuery(MetricsRecorder recorder, long validationStart, long searchStart) {
+        if (recorder != null) {
+            recorder.record(searchStart - validationStart, System.nanoTime() - searchStart);
+        }
+    }
+
     private void checkNotNull(String... args) {
         for (String arg : args) {
             if (arg == null) {
@@ -171,6 +421,31 @@ public class WordNet {
         WordNet wordnet5 = new WordNet("synsets.txt", "hypernyms.txt");
         System.out.println("Common Ancestor in the SAP between " + nounA + " and " + nounB + ": " + wordnet5.sap(nounA, nounB)); // Expected: entity
 
+        // Test 6: Testing nearestNouns method
+        System.out.println("\n[Test 6] Testing nearestNouns method:");
+        WordNet wordnet6 = new WordNet("synsets.txt", "hypernyms.txt");
+        for (String noun : wordnet6.nearestNouns(nounA, 10)) {
+            System.out.println(noun + " " + wordnet6.distance(nounA, noun)); // Expected: distances in non-decreasing order
+        }
+
+        // Test 7: Testing the topological order and depths
+        System.out.println("\n[Test 7] Testing the topological order and depths:");
+        WordNet wordnet7 = new WordNet("synsets.txt", "hypernyms.txt");
+        int[] order = wordnet7.topologicalOrder();
+        int[] position = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        boolean hypernymsFirst = true;
+        for (int v = 0; v < order.length; v++) {
+            for (int hypernym : wordnet7.hypernymDigraph.adj(v)) {
+                hypernymsFirst &= position[hypernym] < position[v];
+                hypernymsFirst &= wordnet7.synsetDepth(v) <= wordnet7.synsetDepth(hypernym) + 1;
+            }
+        }
+        System.out.println("Every synset after its hypernyms, at most one deeper: " + hypernymsFirst); // Expected: true
+        System.out.println("Depth of " + nounA + ": " + wordnet7.depth(nounA)); // Expected: its shortest path up to entity
+
         System.out.println("\nAll tests completed!");
     }
 }
@@ -0,0 +1,219 @@
+import edu.princeton.cs.algs4.Digraph;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Benchmarks for the WordNet module.
+// A small JMH-style harness: each benchmark is warmed up, then run for a number of
+// timed iterations, and reports the mean and spread of the time per operation together with
+// the bytes allocated per operation and the allocation rate (like JMH's -prof gc).
+//
+// The SAP benchmarks on the WordNet DAG query synset ids directly, so that they measure SAP alone;
+// the WordNet benchmarks add the noun lookups and the result of each query on top of them.
+//
+// Usage: java WordNetBenchmark synsets.txt hypernyms.txt digraph1.txt outcast5.txt outcast8.txt ...
+
+public class WordNetBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 500_000_000L;
+    private static final int RANDOM_PAIRS = 4096;
+    private static final int HOT_PAIRS = 16;
+    private static final long SEED = 42;
+
+    // the operation under test; i counts calls so that a benchmark can cycle through its inputs
+    private interface Operation {
+        Object run(int i);
+    }
+
+    // keeps results reachable so that the JIT cannot eliminate the benchmarked work
+    private static volatile Object sink;
+
+    // run one benchmark and print a result row
+    private static void benchmark(String name, Operation operation) {
+        int calls = 0;
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+            calls = runIteration(operation, calls, null);
+        }
+
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int iteration = 0; iteration < MEASURED_ITERATIONS; iteration++) {
+            long[] measurement = new long[3];
+            calls = runIteration(operation, calls, measurement);
+            nanosPerOp[iteration] = (double) measurement[1] / measurement[0];
+            totalOps += measurement[0];
+            totalNanos += measurement[1];
+            totalBytes += measurement[2];
+        }
+
+        double mean = (double) totalNanos / totalOps;
+        double error = 0;
+        for (double value : nanosPerOp) {
+            error = Math.max(error, Math.abs(value - mean));
+        }
+        double bytesPerOp = totalBytes < 0 ? Double.NaN : (double) totalBytes / totalOps;
+        double allocationRate = totalBytes < 0 ? Double.NaN : totalBytes / (totalNanos / 1e9) / (1 << 20);
+
+        StdOut.printf("%-40s %12d %16.1f ± %-12.1f %14.1f %12.1f%n",
+                name, totalOps, mean, error, bytesPerOp, allocationRate);
+    }
+
+    // run operation for one iteration; measurement (if not null) receives ops, nanos and bytes allocated
+    private static int runIteration(Operation operation, int calls, long[] measurement) {
+        long ops = 0;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink = operation.run(calls++);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        long bytesAfter = allocatedBytes();
+
+        if (measurement != null) {
+            measurement[0] = ops;
+            measurement[1] = elapsed;
+            measurement[2] = bytesBefore < 0 ? -1 : bytesAfter - bytesBefore;
+        }
+        return calls;
+    }
+
+    // bytes allocated so far by the current thread; -1 if the JVM does not report it
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static int[][] randomVertexPairs(int V, int count) {
+        int[][] pairs = new int[count][2];
+        for (int i = 0; i < count; i++) {
+            pairs[i][0] = StdRandom.uniformInt(V);
+            pairs[i][1] = StdRandom.uniformInt(V);
+        }
+        return pairs;
+    }
+
+    // the WordNet DAG: an edge from each synset to each of its hypernyms
+    private static Digraph hypernymDigraph(String synsets, String hypernyms) {
+        Digraph G = new Digraph(new In(synsets).readAllLines().length);
+        In in = new In(hypernyms);
+        while (in.hasNextLine()) {
+            String[] ids = in.readLine().split(",");
+            for (int i = 1; i < ids.length; i++) {
+                G.addEdge(Integer.parseInt(ids[0]), Integer.parseInt(ids[i]));
+            }
+        }
+        return G;
+    }
+
+    // benchmark length and ancestor of sap on random and hot-set vertex pairs
+    private static void benchmarkSap(String label, SAP sap, int[][] randomPairs, int[][] hotPairs) {
+        benchmark("SAP.length " + label + " random", i -> {
+            int[] pair = randomPairs[i % RANDOM_PAIRS];
+            return sap.length(pair[0], pair[1]);
+        });
+        benchmark("SAP.length " + label + " hot set", i -> {
+            int[] pair = hotPairs[i % HOT_PAIRS];
+            return sap.length(pair[0], pair[1]);
+        });
+        benchmark("SAP.ancestor " + label + " random", i -> {
+            int[] pair = randomPairs[i % RANDOM_PAIRS];
+            return sap.ancestor(pair[0], pair[1]);
+        });
+        benchmark("SAP.ancestor " + label + " hot set", i -> {
+            int[] pair = hotPairs[i % HOT_PAIRS];
+            return sap.ancestor(pair[0], pair[1]);
+        });
+    }
+
+    private static String[][] randomNounPairs(String[] nouns, int count) {
+        String[][] pairs = new String[count][2];
+        for (int i = 0; i < count; i++) {
+            pairs[i][0] = nouns[StdRandom.uniformInt(nouns.length)];
+            pairs[i][1] = nouns[StdRandom.uniformInt(nouns.length)];
+        }
+        return pairs;
+    }
+
+    public static void main(String[] args) {
+        String synsets = args[0];
+        String hypernyms = args[1];
+        String digraph = args[2];
+        StdRandom.setSeed(SEED);
+
+        StdOut.printf("%-40s %12s %16s   %-12s %14s %12s%n",
+                "Benchmark", "Ops", "ns/op", "error", "B/op", "alloc MB/s");
+
+        // WordNet construction
+        benchmark("WordNet.<init>", i -> new WordNet(synsets, hypernyms));
+
+        // SAP on digraph1.txt
+        SAP smallSap = new SAP(new Digraph(new In(digraph)));
+        int[][] smallPairs = randomVertexPairs(new Digraph(new In(digraph)).V(), RANDOM_PAIRS);
+        benchmark("SAP.length digraph1 random", i -> {
+            int[] pair = smallPairs[i % RANDOM_PAIRS];
+            return smallSap.length(pair[0], pair[1]);
+        });
+        benchmark("SAP.ancestor digraph1 random", i -> {
+            int[] pair = smallPairs[i % RANDOM_PAIRS];
+            return smallSap.ancestor(pair[0], pair[1]);
+        });
+
+        // SAP on the full WordNet DAG, on synset ids: without depths (the public constructor),
+        // and seeded with the depths of the synsets as WordNet builds it
+        WordNet wordnet = new WordNet(synsets, hypernyms);
+        Digraph wordNetDigraph = hypernymDigraph(synsets, hypernyms);
+        int[] depth = new int[wordNetDigraph.V()];
+        for (int v = 0; v < depth.length; v++) {
+            depth[v] = wordnet.synsetDepth(v);
+        }
+        int[][] randomSynsetPairs = randomVertexPairs(wordNetDigraph.V(), RANDOM_PAIRS);
+        int[][] hotSynsetPairs = randomVertexPairs(wordNetDigraph.V(), HOT_PAIRS);
+        benchmarkSap("wordnet", new SAP(wordNetDigraph), randomSynsetPairs, hotSynsetPairs);
+        benchmarkSap("wordnet depths", new SAP(wordNetDigraph, depth), randomSynsetPairs, hotSynsetPairs);
+
+        // WordNet queries end to end: the noun lookups, the SAP search and the result
+        List<String> nounList = new ArrayList<>();
+        for (String noun : wordnet.nouns()) {
+            nounList.add(noun);
+        }
+        String[] nouns = nounList.toArray(new String[0]);
+        String[][] randomPairs = randomNounPairs(nouns, RANDOM_PAIRS);
+        String[][] hotPairs = randomNounPairs(nouns, HOT_PAIRS);
+        benchmark("WordNet.distance random", i -> {
+            String[] pair = randomPairs[i % RANDOM_PAIRS];
+            return wordnet.distance(pair[0], pair[1]);
+        });
+        benchmark("WordNet.distance hot set", i -> {
+            String[] pair = hotPairs[i % HOT_PAIRS];
+            return wordnet.distance(pair[0], pair[1]);
+        });
+        benchmark("WordNet.sap random", i -> {
+            String[] pair = randomPairs[i % RANDOM_PAIRS];
+            return wordnet.sap(pair[0], pair[1]);
+        });
+        benchmark("WordNet.sap hot set", i -> {
+            String[] pair = hotPairs[i % HOT_PAIRS];
+            return wordnet.sap(pair[0], pair[1]);
+        });
+
+        // Outcast on the bundled outcast files
+        Outcast outcast = new Outcast(wordnet);
+        for (int t = 3; t < args.length; t++) {
+            String[] outcastNouns = new In(args[t]).readAllStrings();
+            benchmark("Outcast.outcast " + args[t], i -> outcast.outcast(outcastNouns));
+        }
+    }
+}
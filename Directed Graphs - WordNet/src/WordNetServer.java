@@ -0,0 +1,340 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// WordNet query server.
+// Loads one WordNet and answers queries from many clients over a line-based TCP protocol
+// on the loopback interface, so that each process does not have to load WordNet itself.
+//
+// Each request is one line of whitespace-separated tokens:
+//        distance nounA nounB
+//        sap nounA nounB
+//        isNoun word
+//        outcast noun1 noun2 ... nounN
+//        stats
+//        quit
+// and each response is one line, either "OK <result>" or "ERR <message>".
+// Clients may pipeline requests: responses come back in request order,
+// and are flushed as a batch once no further request is waiting to be read.
+// Each connection is handled on its own virtual thread. Before Java 21 it gets a platform thread,
+// at most MAX_PLATFORM_CONNECTIONS at once, and further connections are refused with "ERR server busy".
+
+public class WordNetServer implements AutoCloseable {
+
+    private static final String[] COMMANDS = {"distance", "sap", "isNoun", "outcast"};
+    private static final int MAX_PLATFORM_CONNECTIONS = 256;
+
+    private final WordNet wordnet;
+    private final Outcast outcast;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+    private final Thread acceptThread;
+    private final Set<Socket> openConnections;
+
+    private final long startNanos;
+    private final LongAdder connections;
+    private final LongAdder errors;
+    private final Map<String, LatencyHistogram> latencies;
+
+    // start serving wordnet on the given loopback port (0 picks a free port)
+    public WordNetServer(WordNet wordnet, int port) throws IOException {
+        if (wordnet == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        this.wordnet = wordnet;
+        this.outcast = new Outcast(wordnet);
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.connectionExecutor = newConnectionExecutor();
+        this.openConnections = ConcurrentHashMap.newKeySet();
+
+        this.startNanos = System.nanoTime();
+        this.connections = new LongAdder();
+        this.errors = new LongAdder();
+        this.latencies = new LinkedHashMap<>();
+        for (String command : COMMANDS) {
+            this.latencies.put(command, new LatencyHistogram());
+        }
+
+        this.acceptThread = new Thread(this::acceptConnections, "wordnet-server-accept");
+        this.acceptThread.setDaemon(true);
+        this.acceptThread.start();
+    }
+
+    // virtual threads when the runtime has them (Java 21+), otherwise one platform thread per connection
+    // up to MAX_PLATFORM_CONNECTIONS, with no queue so that a further connection is rejected at once
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(0, MAX_PLATFORM_CONNECTIONS, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "wordnet-server-connection");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    // the port the server is listening on
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.increment();
+                openConnections.add(socket);
+                try {
+                    connectionExecutor.execute(() -> serveConnection(socket));
+                } catch (RejectedExecutionException e) {
+                    refuseConnection(socket);
+                }
+            } catch (IOException e) {
+                // the server socket was closed
+                return;
+            }
+        }
+    }
+
+    // every connection thread is busy (or the server is closing): tell the client and hang up
+    private void refuseConnection(Socket socket) {
+        errors.increment();
+        openConnections.remove(socket);
+        try (Socket s = socket) {
+            s.getOutputStream().write("ERR server busy\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // the client went away
+        }
+    }
+
+    private void serveConnection(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("quit")) {
+                    break;
+                }
+                out.write(handle(tokens));
+                out.write('\n');
+
+                // flush once the pipelined batch has been answered
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // the client went away or the server is shutting down
+        } catch (IOException e) {
+            StdOut.println("Connection failed: " + e.getMessage());
+        } finally {
+            openConnections.remove(socket);
+        }
+    }
+
+    // answer one request given as tokens
+    String handle(String[] tokens) {
+        String command = tokens[0];
+        if (command.equals("stats")) {
+            return "OK " + stats();
+        }
+
+        LatencyHistogram latency = latencies.get(command);
+        if (latency == null) {
+            errors.increment();
+            return "ERR unknown command " + command;
+        }
+
+        long start = System.nanoTime();
+        try {
+            String result = execute(command, Arrays.copyOfRange(tokens, 1, tokens.length));
+            return "OK " + result;
+        } catch (IllegalArgumentException e) {
+            errors.increment();
+            return "ERR " + e.getMessage();
+        } finally {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private String execute(String command, String[] args) {
+        switch (command) {
+            case "distance":
+                checkArgumentCount(args, 2);
+                return String.valueOf(wordnet.distance(args[0], args[1]));
+            case "sap":
+                checkArgumentCount(args, 2);
+                return wordnet.sap(args[0], args[1]);
+            case "isNoun":
+                checkArgumentCount(args, 1);
+                return String.valueOf(wordnet.isNoun(args[0]));
+            case "outcast":
+                if (args.length == 0) {
+                    throw new IllegalArgumentException("outcast expects at least one noun");
+                }
+                return outcast.outcast(args);
+            default:
+                throw new IllegalArgumentException("unknown command " + command);
+        }
+    }
+
+    private void checkArgumentCount(String[] args, int expected) {
+        if (args.length != expected) {
+            throw new IllegalArgumentException("expected " + expected + " arguments but got " + args.length);
+        }
+    }
+
+    // throughput and per-command latency since the server started, as one line
+    public String stats() {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long requests = 0;
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram latency = entry.getValue();
+            requests += latency.count();
+            sb.append(" | ").append(entry.getKey()).append(' ').append(latency.summary());
+        }
+        return String.format("uptime=%.1fs connections=%d requests=%d errors=%d throughput=%.1f/s",
+                elapsedSeconds, connections.sum(), requests, errors.sum(), requests / elapsedSeconds) + sb;
+    }
+
+    // stop accepting connections and close the open ones
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openConnections) {
+            socket.close();
+        }
+        connectionExecutor.shutdown();
+        try {
+            connectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            acceptThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // serve wordnet on a free loopback port, send one pipelined batch of every command from one client,
+    // and compare each response with the answer from calling wordnet directly;
+    // returns the number of responses that differ
+    static int selfTest(WordNet wordnet) throws IOException {
+        List<String> nouns = new ArrayList<>();
+        for (String noun : wordnet.nouns()) {
+            nouns.add(noun);
+            if (nouns.size() == 8) {
+                break;
+            }
+        }
+        String unknown = "not_a_wordnet_noun";
+        Outcast directOutcast = new Outcast(wordnet);
+
+        List<String> requests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < nouns.size(); i++) {
+            String nounA = nouns.get(i);
+            String nounB = nouns.get((i + 1) % nouns.size());
+            requests.add("distance " + nounA + " " + nounB);
+            expected.add(expectedResponse(() -> String.valueOf(wordnet.distance(nounA, nounB))));
+            requests.add("sap " + nounA + " " + nounB);
+            expected.add(expectedResponse(() -> wordnet.sap(nounA, nounB)));
+            requests.add("isNoun " + nounA);
+            expected.add(expectedResponse(() -> String.valueOf(wordnet.isNoun(nounA))));
+        }
+        requests.add("isNoun " + unknown);
+        expected.add(expectedResponse(() -> String.valueOf(wordnet.isNoun(unknown))));
+        requests.add("distance " + nouns.get(0) + " " + unknown);
+        expected.add(expectedResponse(() -> String.valueOf(wordnet.distance(nouns.get(0), unknown))));
+        requests.add("outcast " + String.join(" ", nouns));
+        expected.add(expectedResponse(() -> directOutcast.outcast(nouns.toArray(new String[0]))));
+
+        int mismatches = 0;
+        try (WordNetServer server = new WordNetServer(wordnet, 0);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            for (String request : requests) {
+                out.write(request);
+                out.write('\n');
+            }
+            out.write("quit\n");
+            out.flush();
+
+            for (int i = 0; i < requests.size(); i++) {
+                String response = in.readLine();
+                if (!expected.get(i).equals(response)) {
+                    mismatches++;
+                    StdOut.println("Mismatch for " + requests.get(i) + ": expected " + expected.get(i) + " but got " + response);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    // the response the server should give for a request answered directly by query
+    private static String expectedResponse(Supplier<String> query) {
+        try {
+            return "OK " + query.get();
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    // test client: serve synsets and hypernyms on the given port until the process is killed,
+    // e.g. java WordNetServer synsets.txt hypernyms.txt 7070
+    // and then query it with e.g. printf 'distance ginseng Down_syndrome\nstats\n' | nc localhost 7070
+    // or check the server against direct WordNet calls and exit, with
+    // java WordNetServer synsets.txt hypernyms.txt --self-test
+    public static void main(String[] args) throws IOException {
+        WordNet wordnet = new WordNet(args[0], args[1]);
+        if (args.length > 2 && args[2].equals("--self-test")) {
+            // Test 1: Pipelined requests of every command match direct WordNet calls
+            StdOut.println("\n[Test 1] Pipelined requests match direct WordNet calls:");
+            StdOut.println("Mismatches: " + selfTest(wordnet)); // Expected: 0
+            return;
+        }
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        WordNetServer server = new WordNetServer(wordnet, port);
+        StdOut.println("WordNet server listening on localhost:" + server.port());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> StdOut.println(server.stats())));
+        try {
+            server.acceptThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
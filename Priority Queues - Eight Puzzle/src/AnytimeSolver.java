@@ -0,0 +1,216 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.MinPQ;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Anytime solver.
+// Finds a solution quickly and keeps improving it for as long as a budget of search nodes
+// and time allows, instead of blocking until a shortest solution is found like Solver.
+//
+// It runs weighted A* repeatedly (restarting weighted A*): the priority of a search node is
+// the number of moves made plus weight times the heuristic estimate. With a weight above 1
+// the search is greedier and finds a solution after expanding far fewer nodes, but the solution
+// may be up to weight times longer than a shortest one. Each run stops as soon as it finds a
+// shorter solution than the best so far, and the next run uses a smaller weight, down to 1.
+// Every run prunes the search nodes that cannot lead to a shorter solution (moves made plus the
+// unweighted estimate is at least the length of the best solution), so once a run has no search
+// nodes left the best solution is a shortest one.
+//
+// As in Solver, search nodes do not refer to their previous search node: each run keeps the last
+// move to each board it has reached, and the best solution is kept as its moves packed 2 bits each
+// (see MoveSequence), whose boards are replayed only when the solution is iterated.
+
+public class AnytimeSolver {
+
+    // A weight is lowered to 1 once it is within this of 1.
+    private static final double SMALLEST_WEIGHT_ABOVE_ONE = 1.1;
+
+    // called with each solution that is shorter than all solutions found before it
+    public interface SolutionListener {
+        void improved(int moves, Iterable<Board> solution, double weight);
+    }
+
+    private static final class SearchNode {
+        private final Board board;
+        private final int numOfMovesMade;
+        private final int estimate;
+
+        public SearchNode(Board board, int numOfMovesMade, Heuristic heuristic) {
+            this.board = board;
+            this.numOfMovesMade = numOfMovesMade;
+            this.estimate = heuristic.estimate(board);
+        }
+    }
+
+    private final Board initial;
+    private final Heuristic heuristic;
+    private final SearchLimit limit;
+    private final SolutionListener listener;
+    private final boolean solvable;
+    private MoveSequence bestSolution;
+    private boolean optimal;
+
+    // Improve solutions to the initial board, starting with the given weight, until a shortest
+    // solution is found or maxNodes search nodes or timeLimitMillis milliseconds are spent
+    // (Long.MAX_VALUE for no limit); listener (which may be null) is called with each improvement.
+    public AnytimeSolver(Board initial, Heuristic heuristic, double weight, long maxNodes, long timeLimitMillis,
+                         SolutionListener listener) {
+        if (initial == null || heuristic == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1");
+        }
+
+        this.initial = initial;
+        this.heuristic = heuristic;
+        this.limit = new SearchLimit(maxNodes, timeLimitMillis);
+        this.listener = listener;
+        this.solvable = initial.isSolvable();
+        if (!this.solvable) {
+            return;
+        }
+
+        SearchNode initialNode = new SearchNode(initial, 0, heuristic);
+        if (initial.isGoal()) {
+            improve(new MoveSequence(new int[0]), weight);
+        }
+        try {
+            while (!this.optimal) {
+                search(initialNode, weight);
+                weight = weight < SMALLEST_WEIGHT_ABOVE_ONE ? 1 : 1 + (weight - 1) / 2;
+            }
+        } catch (SearchLimit.ExceededException e) {
+            // out of budget: keep the best solution found so far
+        }
+    }
+
+    // One run of weighted A*, until it finds a shorter solution than the best so far
+    // or runs out of search nodes, which proves the best solution is a shortest one.
+    private void search(SearchNode initialNode, double weight) {
+        MinPQ<SearchNode> pq = new MinPQ<>((a, b) -> {
+            int byPriority = Double.compare(a.numOfMovesMade + weight * a.estimate, b.numOfMovesMade + weight * b.estimate);
+            // prefer the node with more moves made, which is closer to a goal
+            return byPriority != 0 ? byPriority : b.numOfMovesMade - a.numOfMovesMade;
+        });
+        // the fewest moves found so far to each board put on the queue, and the last of those moves,
+        // packed into one int as moves << 2 | direction
+        Map<Board, Integer> lastMoveTo = new HashMap<>();
+        pq.insert(initialNode);
+        lastMoveTo.put(initialNode.board, 0);
+
+        while (!pq.isEmpty()) {
+            SearchNode node = pq.delMin();
+            if (node.numOfMovesMade > lastMoveTo.get(node.board) >>> 2 || !canImprove(node)) {
+                continue;
+            }
+            this.limit.charge();
+
+            int numOfMovesToNeighbor = node.numOfMovesMade + 1;
+            for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+                Board neighboringBoard = node.board.moveBlank(direction);
+                if (neighboringBoard == null) {
+                    continue;
+                }
+                Integer lastMove = lastMoveTo.get(neighboringBoard);
+                if (lastMove != null && numOfMovesToNeighbor >= lastMove >>> 2) {
+                    continue;
+                }
+                SearchNode neighbor = new SearchNode(neighboringBoard, numOfMovesToNeighbor, this.heuristic);
+                if (!canImprove(neighbor)) {
+                    continue;
+                }
+                if (neighboringBoard.isGoal()) {
+                    improve(movesTo(node.board, direction, lastMoveTo), weight);
+                    return;
+                }
+                lastMoveTo.put(neighboringBoard, numOfMovesToNeighbor << 2 | direction);
+                pq.insert(neighbor);
+            }
+        }
+        this.optimal = true;
+    }
+
+    // The moves from the initial board to board followed by one more move in lastDirection,
+    // retraced backwards by undoing the last move to each board.
+    // Each board on the way was reached in fewer moves than the board after it,
+    // so the retracing ends at the initial board, the only board reached in 0 moves.
+    private static MoveSequence movesTo(Board board, int lastDirection, Map<Board, Integer> lastMoveTo) {
+        int[] directions = new int[(lastMoveTo.get(board) >>> 2) + 1];
+        int i = directions.length;
+        directions[--i] = lastDirection;
+        for (int lastMove = lastMoveTo.get(board); lastMove >>> 2 > 0; lastMove = lastMoveTo.get(board)) {
+            directions[--i] = lastMove & 3;
+            board = board.moveBlank(lastMove & 3 ^ 1);
+        }
+        return new MoveSequence(Arrays.copyOfRange(directions, i, directions.length));
+    }
+
+    // might a solution through node be shorter than the best so far?
+    private boolean canImprove(SearchNode node) {
+        return this.bestSolution == null || node.numOfMovesMade + node.estimate < this.bestSolution.length();
+    }
+
+    private void improve(MoveSequence solution, double weight) {
+        this.bestSolution = solution;
+        if (this.listener != null) {
+            this.listener.improved(moves(), solution(), weight);
+        }
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return this.solvable;
+    }
+
+    // is the best solution found a shortest one?
+    public boolean isOptimal() {
+        return this.optimal;
+    }
+
+    // number of moves of the best solution found; -1 if none was found
+    public int moves() {
+        return this.bestSolution == null ? -1 : this.bestSolution.length();
+    }
+
+    // sequence of boards in the best solution found, replayed from the initial board as it is iterated;
+    // null if none was found
+    public Iterable<Board> solution() {
+        return this.bestSolution == null ? null : this.bestSolution.replay(this.initial);
+    }
+
+    // test client: java AnytimeSolver puzzle.txt [weight] [time limit in ms] [heuristic name]
+    public static void main(String[] args) {
+
+        // create initial board from file
+        In in = new In(args[0]);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                tiles[i][j] = in.readInt();
+        Board initial = new Board(tiles);
+
+        double weight = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        long timeLimitMillis = args.length > 2 ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+        Heuristic heuristic = args.length > 3 ? Heuristic.named(args[3]) : Heuristic.MANHATTAN;
+
+        // print each improvement as it is found, then the best solution
+        long start = System.nanoTime();
+        AnytimeSolver solver = new AnytimeSolver(initial, heuristic, weight, Long.MAX_VALUE, timeLimitMillis,
+                (moves, solution, w) -> StdOut.printf("%8.1f ms: %d moves (weight %.2f)%n", (System.nanoTime() - start) / 1e6, moves, w));
+
+        if (!solver.isSolvable())
+            StdOut.println("No solution possible");
+        else if (solver.moves() < 0)
+            StdOut.println("No solution found within the time limit");
+        else {
+            StdOut.println((solver.isOptimal() ? "Minimum number of moves = " : "Best number of moves found = ") + solver.moves());
+            for (Board board : solver.solution())
+                StdOut.println(board);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Batch solver.
+// Solves many puzzle files concurrently on a fixed pool of worker threads,
+// and writes the result of each puzzle in the same format as Solver's test client,
+// as a stream in input order.
+//
+// Each puzzle gets its own budget of search nodes and time (see SearchLimit), so a hard
+// instance is reported as unsolved once its budget runs out instead of holding on to a worker.
+// While the result of the oldest puzzle is awaited, the workers keep solving the puzzles behind it,
+// up to a bounded number of puzzles ahead, so the memory held by finished results stays bounded.
+//
+// Usage: java BatchSolver [-threads t] [-nodes n] [-millis ms] [-heuristic name] [-algorithm name] path ...
+// where each path is a puzzle file or a directory of puzzle files (*.txt, in name order).
+
+public class BatchSolver {
+
+    // puzzles submitted ahead of the oldest unfinished one, per worker thread
+    private static final int PUZZLES_AHEAD_PER_THREAD = 4;
+
+    private final int threads;
+    private final long maxNodes;
+    private final long timeLimitMillis;
+    private final Heuristic heuristic;
+    private final Solver.Algorithm algorithm;
+
+    // a batch solver with the given number of worker threads and, for each puzzle,
+    // at most maxNodes search nodes and timeLimitMillis milliseconds (Long.MAX_VALUE for no limit)
+    public BatchSolver(int threads, long maxNodes, long timeLimitMillis, Heuristic heuristic, Solver.Algorithm algorithm) {
+        if (heuristic == null || algorithm == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        if (threads <= 0 || maxNodes <= 0 || timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("Threads and limits must be positive");
+        }
+        this.threads = threads;
+        this.maxNodes = maxNodes;
+        this.timeLimitMillis = timeLimitMillis;
+        this.heuristic = heuristic;
+        this.algorithm = algorithm;
+    }
+
+    // Solve every file and pass the result of each, in the order of files, to output.
+    // A file that cannot be read, cannot be solved within its budget, or whose search fails
+    // (even with an Error) is reported in its result and does not stop the batch.
+    // If the calling thread is interrupted, the batch stops and an IllegalStateException is thrown.
+    public void solve(List<String> files, Consumer<String> output) {
+        if (files == null || output == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-solver-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Queue<Future<String>> pending = new ArrayDeque<>();
+        int next = 0;
+        int written = 0;
+        try {
+            while (next < files.size() || !pending.isEmpty()) {
+                while (next < files.size() && pending.size() < this.threads * PUZZLES_AHEAD_PER_THREAD) {
+                    String file = files.get(next++);
+                    pending.add(workers.submit(() -> solveOne(file)));
+                }
+                output.accept(pending.remove().get());
+                written++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the output stopped partway: do not let it pass for a finished batch
+            throw new IllegalStateException("Batch interrupted after " + written + " of " + files.size() + " puzzles");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Puzzle could not be solved", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // the result of one puzzle file: its name, followed by the output of Solver's test client
+    // or the reason it was not solved
+    private String solveOne(String file) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(file).append("\n");
+        try {
+            In in = new In(file);
+            int n = in.readInt();
+            int[][] tiles = new int[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    tiles[i][j] = in.readInt();
+            Board initial = new Board(tiles);
+
+            Solver solver = new Solver(initial, this.heuristic, this.algorithm, new SearchLimit(this.maxNodes, this.timeLimitMillis));
+            if (!solver.isSolvable()) {
+                sb.append("No solution possible\n");
+            } else {
+                sb.append("Minimum number of moves = ").append(solver.moves()).append("\n");
+                for (Board board : solver.solution()) {
+                    sb.append(board).append("\n");
+                }
+            }
+        } catch (SearchLimit.ExceededException e) {
+            sb.append("Unsolved: ").append(e.getMessage()).append("\n");
+        } catch (RuntimeException e) {
+            sb.append("Error: ").append(e.getMessage()).append("\n");
+        } catch (Error e) {
+            // e.g. a search that ran out of memory or stack: this puzzle failed, the batch goes on
+            sb.append("Error: ").append(e).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // the puzzle files named by paths, with each directory replaced by its *.txt files in name order
+    private static List<String> puzzleFiles(List<String> paths) {
+        List<String> files = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            File[] children = file.listFiles((dir, name) -> name.endsWith(".txt"));
+            if (children == null) {
+                files.add(path);
+                continue;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                files.add(child.getPath());
+            }
+        }
+        return files;
+    }
+
+    // test client (see usage above)
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxNodes = Long.MAX_VALUE;
+        long timeLimitMillis = Long.MAX_VALUE;
+        Heuristic heuristic = Heuristic.MANHATTAN;
+        Solver.Algorithm algorithm = Solver.Algorithm.A_STAR;
+
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Option " + args[i] + " needs a value");
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-threads":   threads = Integer.parseInt(value); break;
+                case "-nodes":     maxNodes = Long.parseLong(value); break;
+                case "-millis":    timeLimitMillis = Long.parseLong(value); break;
+                case "-heuristic": heuristic = Heuristic.named(value); break;
+                case "-algorithm": algorithm = Solver.Algorithm.valueOf(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<String> files = puzzleFiles(Arrays.asList(args).subList(i, args.length));
+
+        BatchSolver batch = new BatchSolver(threads, maxNodes, timeLimitMillis, heuristic, algorithm);
+        long start = System.nanoTime();
+        batch.solve(files, StdOut::print);
+        StdOut.printf("Processed %d puzzles on %d threads in %.1f ms%n", files.size(), threads, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -1,40 +1,106 @@
-import edu.princeton.cs.algs4.StdRandom;
-
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public final class Board {
-    private final int[][] tiles;
+
+    // Compact encoding of the tiles, in row-major order.
+    // Boards up to 4-by-4 pack every tile into 4 bits of a single long (tile i at bits 4i to 4i+3),
+    // so that a move is a couple of bit operations and a board holds no array at all.
+    // Larger boards keep one byte per tile (two bytes per tile once n*n exceeds 256).
+    private static final int MAX_PACKED_DIMENSION = 4;
+
+    // Directions in which the blank square moves, in the order of neighbors();
+    // the opposite of a direction d is d ^ 1.
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+
     private final int n;
-    private int blankRow;
-    private int blankCol;
-    private int randomRow1;
-    private int randomCol1;
-    private int randomRow2;
-    private int randomCol2;
+    private final int blankIndex;
+    private final long packedTiles;
+    private final byte[] tiles;
+
+    // Hamming and Manhattan distances, computed once for a board built from an array
+    // and updated in constant time for each board derived from it by a move,
+    // since a move changes the position of exactly one tile.
+    private final int hamming;
+    private final int manhattan;
 
     // create a board from an n-by-n array of tiles,
     // where tiles[row][col] = tile at (row, col)
     public Board(int[][] tiles) {
-        this.tiles = new int[tiles.length][tiles.length];
         this.n = tiles.length;
+        long packed = 0;
+        byte[] bytes = this.n > MAX_PACKED_DIMENSION ? new byte[this.n * this.n * bytesPerTile(this.n)] : null;
+        int blank = 0;
+        int numOfTilesOutOfPlace = 0;
+        int sumOfManhattanDist = 0;
         for (int i = 0; i < this.n; i++) {
             for (int j = 0; j < this.n; j++) {
-                this.tiles[i][j] = tiles[i][j];
+                int index = i * this.n + j;
+                if (bytes == null) {
+                    packed |= (long) tiles[i][j] << (4 * index);
+                } else {
+                    writeTile(bytes, this.n, index, tiles[i][j]);
+                }
                 if (tiles[i][j] == 0) {
-                    this.blankRow = i;
-                    this.blankCol = j;
+                    blank = index;
+                } else if (tiles[i][j] != index + 1) {
+                    numOfTilesOutOfPlace++;
+                    sumOfManhattanDist += distanceToGoal(tiles[i][j], index);
                 }
             }
         }
-        do {
-            randomRow1 = StdRandom.uniformInt(0, this.n);
-            randomCol1 = StdRandom.uniformInt(0, this.n);
-            randomRow2 = StdRandom.uniformInt(0, this.n);
-            randomCol2 = StdRandom.uniformInt(0, this.n);
-        } while ((randomRow1 == randomRow2 && randomCol1 == randomCol2) ||
-                (randomRow1 == this.blankRow && randomCol1 == this.blankCol) ||
-                (randomRow2 == this.blankRow && randomCol2 == this.blankCol));
+        this.packedTiles = packed;
+        this.tiles = bytes;
+        this.blankIndex = blank;
+        this.hamming = numOfTilesOutOfPlace;
+        this.manhattan = sumOfManhattanDist;
+    }
+
+    // create a board directly from its encoding
+    private Board(int n, long packedTiles, byte[] tiles, int blankIndex, int hamming, int manhattan) {
+        this.n = n;
+        this.packedTiles = packedTiles;
+        this.tiles = tiles;
+        this.blankIndex = blankIndex;
+        this.hamming = hamming;
+        this.manhattan = manhattan;
+    }
+
+    private static int bytesPerTile(int n) {
+        return n * n > 256 ? 2 : 1;
+    }
+
+    private static int readTile(byte[] tiles, int n, int index) {
+        if (bytesPerTile(n) == 1) {
+            return tiles[index] & 0xFF;
+        }
+        return (tiles[2 * index] & 0xFF) << 8 | (tiles[2 * index + 1] & 0xFF);
+    }
+
+    private static void writeTile(byte[] tiles, int n, int index, int tile) {
+        if (bytesPerTile(n) == 1) {
+            tiles[index] = (byte) tile;
+        } else {
+            tiles[2 * index] = (byte) (tile >>> 8);
+            tiles[2 * index + 1] = (byte) tile;
+        }
+    }
+
+    // tile at the given row-major index (0 for the blank square)
+    int tileAt(int index) {
+        if (this.tiles == null) {
+            return (int) (this.packedTiles >>> (4 * index)) & 0xF;
+        }
+        return readTile(this.tiles, this.n, index);
+    }
+
+    // row-major index of the blank square
+    int blankIndex() {
+        return this.blankIndex;
     }
 
     // string representation of this board
@@ -47,10 +113,11 @@ public final class Board {
         int maxLength = String.valueOf(this.n * this.n - 1).length();
         for (int i = 0; i < this.n; i++) {
             for (int j = 0; j < this.n; j++) {
-                int thisTileLength = String.valueOf(this.tiles[i][j]).length();
+                int tile = tileAt(i * this.n + j);
+                int thisTileLength = String.valueOf(tile).length();
                 String paddingSpaces = new String(new char[maxLength - thisTileLength + 1]).replace("\0", space);
                 sb.append(paddingSpaces);
-                sb.append(this.tiles[i][j]);
+                sb.append(tile);
             }
             sb.append("\n");
         }
@@ -64,41 +131,78 @@ public final class Board {
 
     // number of tiles out of place
     public int hamming() {
-        int numOfTilesOutOfPlace = 0;
-        for (int i = 0; i < this.n; i++) {
-            for (int j = 0; j < this.n; j++) {
-                if (this.tiles[i][j] == 0) {
-                    continue;
-                }
-                if (this.tiles[i][j] != i * this.n + j + 1) {
-                    numOfTilesOutOfPlace++;
-                }
-            }
-        }
-        return numOfTilesOutOfPlace;
+        return this.hamming;
     }
 
     // sum of Manhattan distances between tiles and goal
     public int manhattan() {
-        int sumOfManhattanDist = 0;
-        for (int i = 0; i < this.n; i++) {
-            for (int j = 0; j < this.n; j++) {
-                if (this.tiles[i][j] == 0) {
-                    continue;
-                }
-                if (this.tiles[i][j] != i * this.n + j + 1) {
-                    int correctRow = (this.tiles[i][j] - 1) / this.n;
-                    int correctColumn = (this.tiles[i][j] - 1) % this.n;
-                    sumOfManhattanDist += Math.abs(i - correctRow) + Math.abs(j - correctColumn);
-                }
-            }
-        }
-        return sumOfManhattanDist;
+        return this.manhattan;
+    }
+
+    // Manhattan distance of the tile at index from its goal position
+    private int distanceToGoal(int tile, int index) {
+        int correctRow = (tile - 1) / this.n;
+        int correctColumn = (tile - 1) % this.n;
+        return Math.abs(index / this.n - correctRow) + Math.abs(index % this.n - correctColumn);
+    }
+
+    // Manhattan distance of the tile at index from its goal position (0 for the blank square)
+    private int manhattanOf(int tile, int index) {
+        return tile == 0 ? 0 : distanceToGoal(tile, index);
+    }
+
+    // 1 if the tile at index is out of place, 0 otherwise (the blank square is never out of place)
+    private int outOfPlace(int tile, int index) {
+        return tile != 0 && tile != index + 1 ? 1 : 0;
     }
 
     // is this board the goal board?
     public boolean isGoal() {
-        return this.hamming() == 0;
+        return this.hamming == 0;
+    }
+
+    // can this board reach the goal board?
+    // A horizontal move leaves the order of the tiles (read in row-major order, without the blank)
+    // unchanged, and a vertical move changes the number of inversions by n-1 and the row of the blank by one.
+    // So for odd n the parity of the number of inversions never changes and must be even, as on the goal board,
+    // and for even n the parity of the number of inversions plus the row of the blank never changes
+    // and must be odd, as on the goal board. Counting inversions by merge sort takes O(n^2 log n) time.
+    public boolean isSolvable() {
+        int[] tiles = new int[this.n * this.n - 1];
+        int k = 0;
+        for (int index = 0; index < this.n * this.n; index++) {
+            if (index != this.blankIndex) {
+                tiles[k++] = tileAt(index);
+            }
+        }
+        long inversions = countInversions(tiles, new int[tiles.length], 0, tiles.length);
+        if (this.n % 2 == 1) {
+            return inversions % 2 == 0;
+        }
+        return (inversions + this.blankIndex / this.n) % 2 == 1;
+    }
+
+    // number of inversions in a[lo, hi), sorting it with merge sort
+    private static long countInversions(int[] a, int[] aux, int lo, int hi) {
+        if (hi - lo <= 1) {
+            return 0;
+        }
+        int mid = (lo + hi) >>> 1;
+        long inversions = countInversions(a, aux, lo, mid) + countInversions(a, aux, mid, hi);
+        System.arraycopy(a, lo, aux, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (i == mid) {
+                a[k] = aux[j++];
+            } else if (j == hi || aux[i] <= aux[j]) {
+                a[k] = aux[i++];
+            } else {
+                a[k] = aux[j++];
+                inversions += mid - i;
+            }
+        }
+        return inversions;
     }
 
     // does this board equal y?
@@ -113,54 +217,101 @@ public final class Board {
             return false;
         }
         Board yBoard = (Board) y;
-        if (this.n != yBoard.n) {
-            return false;
+        return this.n == yBoard.n
+                && this.packedTiles == yBoard.packedTiles
+                && Arrays.equals(this.tiles, yBoard.tiles);
+    }
+
+    // hash code consistent with equals, so that boards can be kept in hash tables.
+    // The packed tiles are mixed to spread their bits; larger boards hash their tile bytes.
+    public int hashCode() {
+        if (this.tiles != null) {
+            return Arrays.hashCode(this.tiles);
         }
-        for (int i = 0; i < this.n; i++) {
-            for (int j = 0; j < this.n; j++) {
-                if (this.tiles[i][j] != yBoard.tiles[i][j]) {
-                    return false;
-                }
-            }
+        long packedState = this.packedTiles;
+        packedState ^= packedState >>> 33;
+        packedState *= 0xff51afd7ed558ccdL;
+        packedState ^= packedState >>> 33;
+        return (int) packedState;
+    }
+
+    // the board obtained by sliding the tile at index into the blank square
+    private Board slide(int index) {
+        int tile = tileAt(index);
+        int hammingOfNewBoard = this.hamming - outOfPlace(tile, index) + outOfPlace(tile, this.blankIndex);
+        int manhattanOfNewBoard = this.manhattan - distanceToGoal(tile, index) + distanceToGoal(tile, this.blankIndex);
+        if (this.tiles == null) {
+            long packed = this.packedTiles
+                    & ~(0xFL << (4 * index))
+                    | (long) tile << (4 * this.blankIndex);
+            return new Board(this.n, packed, null, index, hammingOfNewBoard, manhattanOfNewBoard);
         }
-        return true;
+        byte[] bytes = this.tiles.clone();
+        writeTile(bytes, this.n, this.blankIndex, tile);
+        writeTile(bytes, this.n, index, 0);
+        return new Board(this.n, 0, bytes, index, hammingOfNewBoard, manhattanOfNewBoard);
     }
 
-    // function to exchange tiles
-    private Board exchangeTiles(int row1, int col1, int row2, int col2) {
-        int[][] tilesOfNewBoard = new int[this.n][];
-        for (int i = 0; i < this.n; i++) {
-            tilesOfNewBoard[i] = this.tiles[i].clone();
+    // the board obtained by exchanging the tiles at two indices
+    private Board exchangeTiles(int index1, int index2) {
+        int tile1 = tileAt(index1);
+        int tile2 = tileAt(index2);
+        int blank = this.blankIndex == index1 ? index2 : this.blankIndex == index2 ? index1 : this.blankIndex;
+        int hammingOfNewBoard = this.hamming
+                - outOfPlace(tile1, index1) - outOfPlace(tile2, index2)
+                + outOfPlace(tile1, index2) + outOfPlace(tile2, index1);
+        int manhattanOfNewBoard = this.manhattan
+                - manhattanOf(tile1, index1) - manhattanOf(tile2, index2)
+                + manhattanOf(tile1, index2) + manhattanOf(tile2, index1);
+        if (this.tiles == null) {
+            long packed = this.packedTiles
+                    & ~(0xFL << (4 * index1)) & ~(0xFL << (4 * index2))
+                    | (long) tile2 << (4 * index1) | (long) tile1 << (4 * index2);
+            return new Board(this.n, packed, null, blank, hammingOfNewBoard, manhattanOfNewBoard);
+        }
+        byte[] bytes = this.tiles.clone();
+        writeTile(bytes, this.n, index1, tile2);
+        writeTile(bytes, this.n, index2, tile1);
+        return new Board(this.n, 0, bytes, blank, hammingOfNewBoard, manhattanOfNewBoard);
+    }
+
+    // the board obtained by moving the blank square one step in the given direction
+    // (UP, DOWN, LEFT or RIGHT); null if the blank square would leave the board
+    Board moveBlank(int direction) {
+        int blankRow = this.blankIndex / this.n;
+        int blankCol = this.blankIndex % this.n;
+        switch (direction) {
+            case UP:
+                return blankRow == 0 ? null : slide(this.blankIndex - this.n);
+            case DOWN:
+                return blankRow == this.n - 1 ? null : slide(this.blankIndex + this.n);
+            case LEFT:
+                return blankCol == 0 ? null : slide(this.blankIndex - 1);
+            case RIGHT:
+                return blankCol == this.n - 1 ? null : slide(this.blankIndex + 1);
+            default:
+                throw new IllegalArgumentException("Unknown direction " + direction);
         }
-        int temp = tilesOfNewBoard[row1][col1];
-        tilesOfNewBoard[row1][col1] = tilesOfNewBoard[row2][col2];
-        tilesOfNewBoard[row2][col2] = temp;
-        Board newBoard = new Board(tilesOfNewBoard);
-        return newBoard;
     }
 
     // all neighboring boards
     public Iterable<Board> neighbors() {
-        List<Board> neighbors = new ArrayList<>();
-        if (this.blankRow != 0) {
-            neighbors.add(exchangeTiles(this.blankRow, this.blankCol, this.blankRow - 1, this.blankCol));
-        }
-        if (this.blankRow != this.n - 1) {
-            neighbors.add(exchangeTiles(this.blankRow, this.blankCol, this.blankRow + 1, this.blankCol));
-        }
-        if (this.blankCol != 0) {
-            neighbors.add(exchangeTiles(this.blankRow, this.blankCol, this.blankRow, this.blankCol - 1));
-        }
-        if (this.blankCol != this.n - 1) {
-            neighbors.add(exchangeTiles(this.blankRow, this.blankCol, this.blankRow, this.blankCol + 1));
+        List<Board> neighbors = new ArrayList<>(4);
+        for (int direction = UP; direction <= RIGHT; direction++) {
+            Board neighbor = moveBlank(direction);
+            if (neighbor != null) {
+                neighbors.add(neighbor);
+            }
         }
         return neighbors;
     }
 
-    // a board that is obtained by exchanging any pair of tiles
+    // a board that is obtained by exchanging any pair of tiles;
+    // exchanges the first two tiles in row-major order, skipping the blank square
     public Board twin() {
-        Board twinBoard = exchangeTiles(this.randomRow1, this.randomCol1, this.randomRow2, this.randomCol2);
-        return twinBoard;
+        int index1 = this.blankIndex == 0 ? 1 : 0;
+        int index2 = this.blankIndex <= 1 ? 2 : 1;
+        return exchangeTiles(index1, index2);
     }
 
     // unit testing (not graded)
@@ -213,6 +364,7 @@ public final class Board {
         int[][] tiles10 = {{1, 2, 3}, {4, 5, 6}, {7, 0, 8}};
         Board board10 = new Board(tiles10);
         System.out.println("Boards are equal? " + board9.equals(board10));  // Expected: false
+        System.out.println("Equal boards have equal hash codes? " + (board7.hashCode() == board8.hashCode()));  // Expected: true
 
         // Test 7: Neighbors of the board
         System.out.println("\nTest 7: Neighbors of the board");
@@ -230,6 +382,11 @@ public final class Board {
         Board twinBoard = board12.twin();
         System.out.println("Twin Board: \n" + twinBoard.toString());
 
+        // Test 9: Solvability
+        System.out.println("\nTest 9: Solvability");
+        System.out.println("Is solvable? " + board12.isSolvable());  // Expected: true
+        System.out.println("Twin is solvable? " + twinBoard.isSolvable());  // Expected: false
+
         System.out.println("\nAll tests completed!");
     }
 
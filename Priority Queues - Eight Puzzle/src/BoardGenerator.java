@@ -0,0 +1,43 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Random board generator.
+// Generates random solvable boards of a chosen difficulty by moving the blank square a given
+// number of random steps away from the goal board, never straight back. Every board reached this
+// way is solvable, and the number of steps bounds its fewest moves, which grow with it.
+// The steps are drawn from StdRandom, so StdRandom.setSeed makes the boards reproducible.
+
+public class BoardGenerator {
+
+    // a random solvable n-by-n board, moves random steps of the blank square away from the goal
+    public static Board randomWalk(int n, int moves) {
+        if (n < 2 || moves < 0) {
+            throw new IllegalArgumentException("Boards must be at least 2-by-2 and moves non-negative");
+        }
+        Board board = Solver.goalBoard(n);
+        int lastDirection = -1;
+        List<Integer> directions = new ArrayList<>(4);
+        for (int i = 0; i < moves; i++) {
+            directions.clear();
+            for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+                if (direction != (lastDirection ^ 1) && board.moveBlank(direction) != null) {
+                    directions.add(direction);
+                }
+            }
+            lastDirection = directions.get(StdRandom.uniformInt(directions.size()));
+            board = board.moveBlank(lastDirection);
+        }
+        return board;
+    }
+
+    // print a random board as a puzzle file: java BoardGenerator n moves seed
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int moves = Integer.parseInt(args[1]);
+        StdRandom.setSeed(Long.parseLong(args[2]));
+        StdOut.print(randomWalk(n, moves));
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Bucket priority queue for small non-negative integer priorities.
+// Items are kept in buckets indexed by their priority f, and within a bucket in stacks indexed
+// by a secondary key g. delMin returns an item of the smallest f, preferring the largest g,
+// and the most recently inserted among those. In A*, with f = moves + heuristic and g = moves,
+// this breaks ties in favour of the deepest search nodes, the ones closest to the goal.
+// Neither insert nor delMin compares items: their cost does not depend on the number of items,
+// only on how many empty buckets and stacks delMin skips, which is bounded by the largest priority.
+
+final class BucketQueue<Item> {
+
+    // a stack of items that share the same f and g
+    private static final class Stack {
+        private Object[] items = new Object[4];
+        private int size;
+
+        void push(Object item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = item;
+        }
+
+        Object pop() {
+            Object item = items[--size];
+            items[size] = null;
+            return item;
+        }
+    }
+
+    private final List<Stack[]> buckets;
+    private int[] largestNonEmptyG;
+    private int minF;
+    private int size;
+
+    BucketQueue() {
+        this.buckets = new ArrayList<>();
+        this.largestNonEmptyG = new int[0];
+        this.minF = Integer.MAX_VALUE;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    void insert(Item item, int f, int g) {
+        if (f < 0 || g < 0) {
+            throw new IllegalArgumentException("Priorities must be non-negative");
+        }
+        while (this.buckets.size() <= f) {
+            this.buckets.add(new Stack[0]);
+        }
+        if (this.largestNonEmptyG.length <= f) {
+            int oldLength = this.largestNonEmptyG.length;
+            this.largestNonEmptyG = Arrays.copyOf(this.largestNonEmptyG, Math.max(f + 1, 2 * oldLength));
+            Arrays.fill(this.largestNonEmptyG, oldLength, this.largestNonEmptyG.length, -1);
+        }
+        Stack[] bucket = this.buckets.get(f);
+        if (bucket.length <= g) {
+            bucket = Arrays.copyOf(bucket, Math.max(g + 1, 2 * bucket.length));
+            this.buckets.set(f, bucket);
+        }
+        if (bucket[g] == null) {
+            bucket[g] = new Stack();
+        }
+        bucket[g].push(item);
+
+        this.largestNonEmptyG[f] = Math.max(this.largestNonEmptyG[f], g);
+        this.minF = Math.min(this.minF, f);
+        this.size++;
+    }
+
+    // the smallest f of the items
+    int minPriority() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Priority queue underflow");
+        }
+        while (this.largestNonEmptyG[this.minF] < 0) {
+            this.minF++;
+        }
+        return this.minF;
+    }
+
+    @SuppressWarnings("unchecked")
+    Item delMin() {
+        minPriority();
+
+        Stack[] bucket = this.buckets.get(this.minF);
+        int g = this.largestNonEmptyG[this.minF];
+        Item item = (Item) bucket[g].pop();
+        while (g >= 0 && (bucket[g] == null || bucket[g].size == 0)) {
+            g--;
+        }
+        this.largestNonEmptyG[this.minF] = g;
+        this.size--;
+        return item;
+    }
+}
@@ -0,0 +1,161 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.function.IntUnaryOperator;
+
+// Exact distance database for the 3-by-3 puzzle.
+// The 3-by-3 puzzle has only 9!/2 = 181,440 solvable boards, so the fewest moves to the goal
+// of every one of them fits in one byte each. A board is indexed by the cell of its blank square
+// and the lexicographic rank of its first 6 tiles in row-major order: with the blank square fixed,
+// the parity of a solvable board (see Board.isSolvable) allows only one order of the last two tiles,
+// so the 9 * (8 * 7 * ... * 3) = 181,440 indices cover exactly the solvable boards.
+//
+// The database is generated offline by a breadth-first search backwards from the goal board
+// (see main), and is memory-mapped when loaded. As a heuristic it is exact on 3-by-3 boards,
+// so Solver needs no search for them; on boards of other sizes it falls back to Manhattan distance.
+
+public class DistanceDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x45584431;
+    private static final int N = 3;
+    private static final int TILES = N * N - 1;
+    private static final int RANKED_TILES = TILES - 2;
+    private static final int RANKS_PER_BLANK_CELL = 20_160;
+    private static final int BOARDS = 181_440;
+    private static final int UNVISITED = 0xFF;
+
+    private final ByteBuffer table;
+
+    private DistanceDatabase(ByteBuffer table) {
+        this.table = table;
+    }
+
+    // load a database written by generate
+    public static DistanceDatabase load(String filename) {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() != 2 * Integer.BYTES + BOARDS || buffer.getInt() != MAGIC || buffer.getInt() != N) {
+                throw new IllegalArgumentException(filename + " is not a 3-by-3 distance database");
+            }
+            return new DistanceDatabase(buffer.slice());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load distance database " + filename, e);
+        }
+    }
+
+    // does the file start like a database written by generate?
+    static boolean isDistanceDatabase(String filename) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // fewest moves from a solvable 3-by-3 board to the goal board; Manhattan distance for other sizes
+    @Override
+    public int estimate(Board board) {
+        if (board.dimension() != N) {
+            return board.manhattan();
+        }
+        return this.table.get(rank(board)) & 0xFF;
+    }
+
+    @Override
+    public int estimate(int[] tiles, int n, int manhattan) {
+        if (n != N) {
+            return manhattan;
+        }
+        int blankIndex = 0;
+        while (tiles[blankIndex] != 0) {
+            blankIndex++;
+        }
+        return this.table.get(rank(index -> tiles[index], blankIndex)) & 0xFF;
+    }
+
+    @Override
+    public boolean isExact(Board board) {
+        return board.dimension() == N;
+    }
+
+    private static int rank(Board board) {
+        return rank(board::tileAt, board.blankIndex());
+    }
+
+    // index of the board with the tile tileAt(index) at each index and the blank square at blankIndex
+    private static int rank(IntUnaryOperator tileAt, int blankIndex) {
+        int[] tiles = new int[RANKED_TILES];
+        int k = 0;
+        for (int index = 0; k < RANKED_TILES; index++) {
+            if (index != blankIndex) {
+                tiles[k++] = tileAt.applyAsInt(index) - 1;
+            }
+        }
+        return blankIndex * RANKS_PER_BLANK_CELL + PatternDatabase.rank(tiles, RANKED_TILES, TILES);
+    }
+
+    // Write the database to a file. The moves are reversible, so the fewest moves from a board
+    // to the goal board are the fewest moves from the goal board to it.
+    public static void generate(String filename) {
+        byte[] fewestMoves = new byte[BOARDS];
+        Arrays.fill(fewestMoves, (byte) UNVISITED);
+
+        int[][] tiles = new int[N][N];
+        for (int index = 0; index < N * N - 1; index++) {
+            tiles[index / N][index % N] = index + 1;
+        }
+        Board goal = new Board(tiles);
+        fewestMoves[rank(goal)] = 0;
+        Queue<Board> queue = new ArrayDeque<>();
+        queue.add(goal);
+        int visited = 1;
+        while (!queue.isEmpty()) {
+            Board board = queue.remove();
+            int moves = fewestMoves[rank(board)] & 0xFF;
+            for (Board neighbor : board.neighbors()) {
+                int rank = rank(neighbor);
+                if ((fewestMoves[rank] & 0xFF) == UNVISITED) {
+                    fewestMoves[rank] = (byte) (moves + 1);
+                    queue.add(neighbor);
+                    visited++;
+                }
+            }
+        }
+        if (visited != BOARDS) {
+            throw new IllegalStateException("Reached " + visited + " of " + BOARDS + " boards");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(N);
+            out.write(fewestMoves);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write distance database " + filename, e);
+        }
+    }
+
+    // generate the database: java DistanceDatabase filename
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        generate(args[0]);
+        StdOut.printf("Generated %s in %.1f ms%n", args[0], (System.nanoTime() - start) / 1e6);
+
+        // Test: the hardest 3-by-3 boards take 31 moves
+        DistanceDatabase database = load(args[0]);
+        Board hardest = new Board(new int[][]{{8, 6, 7}, {2, 5, 4}, {3, 0, 1}});
+        StdOut.println("Moves: " + database.estimate(hardest));  // Expected: 31
+    }
+}
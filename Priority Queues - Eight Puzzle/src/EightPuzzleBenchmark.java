@@ -0,0 +1,120 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+// Benchmarks for the Eight Puzzle module.
+// Each benchmark applies one operation to every board of a set of boards: first in untimed passes
+// so that the JIT compiles the search, then in timed passes, and reports the mean time per board
+// together with the fastest and slowest pass.
+// The sets are puzzle04.txt and random solvable boards (see BoardGenerator) at several difficulty
+// levels, and the timings are followed by the search statistics of each level, which include
+// the bytes allocated per expanded search node.
+//
+// Usage: java EightPuzzleBenchmark puzzle04.txt
+
+public class EightPuzzleBenchmark {
+
+    private static final int WARMUP_PASSES = 5;
+    private static final int MEASURED_PASSES = 10;
+    private static final int RANDOM_BOARDS = 64;
+    private static final long SEED = 42;
+
+    // difficulty levels: board dimension and number of random steps away from the goal
+    private static final int[][] LEVELS = {{3, 10}, {3, 20}, {3, 40}, {4, 20}, {4, 40}};
+
+    // sum of the results of every operation; printed at the end so that the JIT cannot skip the work
+    private static long checksum;
+
+    // time operation on every board and print a result row
+    private static void benchmark(String name, Board[] boards, ToIntFunction<Board> operation) {
+        for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+            runPass(boards, operation);
+        }
+
+        long[] passNanos = new long[MEASURED_PASSES];
+        for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+            passNanos[pass] = runPass(boards, operation);
+        }
+
+        Arrays.sort(passNanos);
+        double mean = (double) Arrays.stream(passNanos).sum() / MEASURED_PASSES / boards.length;
+        StdOut.printf("%-40s %14.1f %14.1f %14.1f%n", name, mean,
+                (double) passNanos[0] / boards.length, (double) passNanos[MEASURED_PASSES - 1] / boards.length);
+    }
+
+    // apply operation to every board once; returns the elapsed nanoseconds
+    private static long runPass(Board[] boards, ToIntFunction<Board> operation) {
+        long start = System.nanoTime();
+        for (Board board : boards) {
+            checksum += operation.applyAsInt(board);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static int countNeighbors(Board board) {
+        int count = 0;
+        for (Board neighbor : board.neighbors()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static Board[] randomBoards(int n, int moves, int count) {
+        Board[] boards = new Board[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = BoardGenerator.randomWalk(n, moves);
+        }
+        return boards;
+    }
+
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                tiles[i][j] = in.readInt();
+        Board[] puzzle04 = new Board[RANDOM_BOARDS];
+        Arrays.fill(puzzle04, new Board(tiles));
+
+        StdRandom.setSeed(SEED);
+        Board[][] boardsOfLevel = new Board[LEVELS.length][];
+        for (int level = 0; level < LEVELS.length; level++) {
+            boardsOfLevel[level] = randomBoards(LEVELS[level][0], LEVELS[level][1], RANDOM_BOARDS);
+        }
+        Board[] boards4x4 = boardsOfLevel[LEVELS.length - 1];
+
+        StdOut.printf("%-40s %14s %14s %14s%n", "Benchmark", "ns/board", "fastest pass", "slowest pass");
+
+        // Board operations
+        benchmark("Board.neighbors puzzle04", puzzle04, EightPuzzleBenchmark::countNeighbors);
+        benchmark("Board.neighbors 4x4 random", boards4x4, EightPuzzleBenchmark::countNeighbors);
+        benchmark("Board.manhattan 4x4 random", boards4x4, Board::manhattan);
+        benchmark("LinearConflict.estimate 4x4 random", boards4x4, Heuristic.LINEAR_CONFLICT::estimate);
+
+        // end-to-end solving
+        benchmark("Solver puzzle04", puzzle04, board -> new Solver(board).moves());
+        for (Solver.Algorithm algorithm : new Solver.Algorithm[]{Solver.Algorithm.A_STAR, Solver.Algorithm.A_STAR_BUCKETS, Solver.Algorithm.IDA_STAR}) {
+            for (int level = 0; level < LEVELS.length; level++) {
+                String name = String.format("Solver %s %dx%d walk %d", algorithm, LEVELS[level][0], LEVELS[level][0], LEVELS[level][1]);
+                benchmark(name, boardsOfLevel[level], board -> new Solver(board, Heuristic.MANHATTAN, algorithm).moves());
+            }
+        }
+        StdOut.println("checksum " + checksum);
+
+        // search statistics of one pass over the boards of each level
+        StdOut.println();
+        for (int level = 0; level < LEVELS.length; level++) {
+            SearchStatistics statistics = new SearchStatistics();
+            long moves = 0;
+            for (Board board : boardsOfLevel[level]) {
+                moves += new Solver(board, Heuristic.MANHATTAN, Solver.Algorithm.A_STAR, statistics).moves();
+            }
+            StdOut.printf("%dx%d walk %-3d moves/board=%.1f %s%n", LEVELS[level][0], LEVELS[level][0], LEVELS[level][1],
+                    (double) moves / RANDOM_BOARDS, statistics.summary());
+        }
+    }
+}
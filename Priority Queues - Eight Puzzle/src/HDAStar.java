@@ -0,0 +1,372 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Hash-distributed A* (HDA*).
+// Runs A* on several worker threads at once. Each board is owned by one worker, chosen by its
+// hash code, and only its owner keeps the fewest moves found to it and puts it on an open list.
+// A worker expands the search node of smallest priority on its own open list and sends each
+// neighboring board to the neighbor's owner. The boards for each owner are collected in batches,
+// which are passed through a lock-free queue per worker, so workers never wait on each other.
+//
+// The workers do not expand nodes in global priority order, so the first solution found need not
+// be a shortest one. Instead, the search keeps the length of the shortest solution found so far
+// and discards every search node whose priority is not below it, which never discards a node on
+// a shorter solution as long as the heuristic never overestimates. The search is over once no
+// search node is left anywhere: on an open list, in a batch, or in a queue. A single counter of
+// such nodes is raised by the number of neighbors before they are sent, and lowered once a node
+// has been expanded or discarded, so it reaches zero only when all workers have run out of work.
+// A worker that has run out of work spins for a moment, since a batch usually arrives soon,
+// and then parks until a batch is sent to it or the search is over, so idle workers leave
+// the cores to the working ones.
+
+final class HDAStar {
+
+    // boards collected for one owner before they are sent
+    private static final int BATCH_SIZE = 64;
+
+    // a worker also sends its incomplete batches after this many expansions
+    private static final int EXPANSIONS_BETWEEN_FLUSHES = 256;
+
+    // expansions charged to the limit at once
+    private static final int EXPANSIONS_PER_CHARGE = 1024;
+
+    // how long a worker out of work spins before it parks
+    private static final long IDLE_SPIN_NANOS = 50_000;
+
+    // how long a parked worker waits before it checks again whether the search is over
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    // A board with the moves made to reach it and the last of those moves,
+    // sent to its owner, which computes its priority.
+    private static final class SearchNode {
+        private final Board board;
+        private final int numOfMovesMade;
+        private final int lastMove;
+        private int priority;
+
+        public SearchNode(Board board, int numOfMovesMade, int lastMove) {
+            this.board = board;
+            this.numOfMovesMade = numOfMovesMade;
+            this.lastMove = lastMove;
+        }
+    }
+
+    private final Heuristic heuristic;
+    private final SearchLimit limit;
+    private final Worker[] workers;
+    private final AtomicLong searchNodesLeft;
+    private final AtomicInteger shortestSolution;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    HDAStar(Heuristic heuristic, int threads, SearchLimit limit) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be positive");
+        }
+        this.heuristic = heuristic;
+        this.limit = limit;
+        this.searchNodesLeft = new AtomicLong();
+        this.shortestSolution = new AtomicInteger(Integer.MAX_VALUE);
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            this.workers[i] = new Worker();
+        }
+    }
+
+    // the moves of the blank square in a shortest solution of initial, which must be solvable
+    MoveSequence solve(Board initial) {
+        this.searchNodesLeft.set(1);
+        this.workers[owner(initial)].inbox.add(new SearchNode[]{new SearchNode(initial, 0, 0)});
+
+        Thread[] threads = new Thread[this.workers.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(this.workers[i], "hda-star-worker-" + i);
+            threads[i].setDaemon(true);
+            this.workers[i].thread = threads[i];
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            this.stopped = true;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new SearchLimit.ExceededException("Interrupted");
+        }
+        // a worker that failed has stopped the others; pass its failure on
+        if (this.failure instanceof RuntimeException) {
+            throw (RuntimeException) this.failure;
+        }
+        if (this.failure instanceof Error) {
+            throw (Error) this.failure;
+        }
+
+        // retrace the moves backwards from the goal board, asking the owner of each board
+        // (the workers have stopped, so their tables can be read)
+        Board board = Solver.goalBoard(initial.dimension());
+        int[] directions = new int[this.shortestSolution.get()];
+        int i = directions.length;
+        for (int lastMove = lastMoveTo(board); lastMove >>> 2 > 0; lastMove = lastMoveTo(board)) {
+            directions[--i] = lastMove & 3;
+            board = board.moveBlank(lastMove & 3 ^ 1);
+        }
+        return new MoveSequence(Arrays.copyOfRange(directions, i, directions.length));
+    }
+
+    // total number of search nodes expanded by all workers
+    long nodesExpanded() {
+        long expanded = 0;
+        for (Worker worker : this.workers) {
+            expanded += worker.expanded;
+        }
+        return expanded;
+    }
+
+    // total number of neighboring boards generated by all workers
+    long nodesGenerated() {
+        long generated = 0;
+        for (Worker worker : this.workers) {
+            generated += worker.generated;
+        }
+        return generated;
+    }
+
+    private int owner(Board board) {
+        int hash = board.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), this.workers.length);
+    }
+
+    private int lastMoveTo(Board board) {
+        return this.workers[owner(board)].lastMoveTo.get(board);
+    }
+
+    // stop every worker, waking the parked ones
+    private void stop() {
+        this.stopped = true;
+        for (Worker worker : this.workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final Queue<SearchNode[]> inbox;
+        private final BucketQueue<SearchNode> pq;
+        private final Map<Board, Integer> lastMoveTo;
+        private final SearchNode[][] batches;
+        private final int[] batchSizes;
+        private Thread thread;
+        private volatile boolean parking;
+        private long idleSince;
+        private long discarded;
+        private long expanded;
+        private long generated;
+
+        Worker() {
+            this.inbox = new ConcurrentLinkedQueue<>();
+            this.pq = new BucketQueue<>();
+            this.lastMoveTo = new HashMap<>();
+            this.batches = new SearchNode[HDAStar.this.workers.length][BATCH_SIZE];
+            this.batchSizes = new int[HDAStar.this.workers.length];
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    SearchNode[] batch;
+                    while ((batch = this.inbox.poll()) != null) {
+                        for (SearchNode node : batch) {
+                            receive(node);
+                        }
+                    }
+                    if (!this.pq.isEmpty()) {
+                        this.idleSince = 0;
+                        expandNext();
+                        continue;
+                    }
+
+                    // out of work: send what is left, and stop if no other worker has work either
+                    sendBatches();
+                    searchNodesLeft.addAndGet(-this.discarded);
+                    this.discarded = 0;
+                    if (searchNodesLeft.get() == 0) {
+                        stop();
+                    } else {
+                        awaitBatch();
+                    }
+                }
+            } catch (Throwable e) {
+                // an Error (such as running out of memory) must stop the other workers too,
+                // or they would wait forever for search nodes this worker will never expand
+                failure = e;
+                stop();
+            }
+        }
+
+        // Spin until IDLE_SPIN_NANOS have passed since this worker ran out of work, then park.
+        // A sender adds its batch before it checks parking, and this worker sets parking before
+        // it checks the inbox, so either the batch is seen here or the sender unparks this worker.
+        private void awaitBatch() {
+            long now = System.nanoTime();
+            if (this.idleSince == 0) {
+                this.idleSince = now;
+            }
+            if (now - this.idleSince < IDLE_SPIN_NANOS) {
+                Thread.onSpinWait();
+                return;
+            }
+            this.parking = true;
+            if (this.inbox.isEmpty() && !stopped) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            this.parking = false;
+        }
+
+        // pass a batch to this worker, waking it if it is parked
+        private void deliver(SearchNode[] batch) {
+            this.inbox.add(batch);
+            if (this.parking) {
+                LockSupport.unpark(this.thread);
+            }
+        }
+
+        private int fewestMovesTo(Board board) {
+            Integer lastMove = this.lastMoveTo.get(board);
+            return lastMove == null ? Integer.MAX_VALUE : lastMove >>> 2;
+        }
+
+        // take a search node of a board this worker owns
+        private void receive(SearchNode node) {
+            if (node.numOfMovesMade >= fewestMovesTo(node.board)) {
+                this.discarded++;
+                return;
+            }
+            this.lastMoveTo.put(node.board, node.numOfMovesMade << 2 | node.lastMove);
+
+            if (node.board.isGoal()) {
+                shortestSolution.accumulateAndGet(node.numOfMovesMade, Math::min);
+                this.discarded++;
+                return;
+            }
+            node.priority = node.numOfMovesMade + heuristic.estimate(node.board);
+            if (node.priority >= shortestSolution.get()) {
+                this.discarded++;
+                return;
+            }
+            this.pq.insert(node, node.priority, node.numOfMovesMade);
+        }
+
+        private void expandNext() {
+            SearchNode node = this.pq.delMin();
+            if (node.numOfMovesMade > fewestMovesTo(node.board) || node.priority >= shortestSolution.get()) {
+                this.discarded++;
+                return;
+            }
+
+            // count the neighbors before any of them is sent, so the count of search nodes left
+            // cannot reach zero while they are on their way
+            Board[] neighbors = new Board[4];
+            int count = 0;
+            for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+                if (node.numOfMovesMade > 0 && direction == (node.lastMove ^ 1)) {
+                    continue;
+                }
+                neighbors[direction] = node.board.moveBlank(direction);
+                if (neighbors[direction] != null) {
+                    count++;
+                }
+            }
+            this.generated += count;
+            searchNodesLeft.addAndGet(count - 1);
+            for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+                if (neighbors[direction] != null) {
+                    send(new SearchNode(neighbors[direction], node.numOfMovesMade + 1, direction));
+                }
+            }
+
+            this.expanded++;
+            if (this.expanded % EXPANSIONS_PER_CHARGE == 0) {
+                limit.chargeBatch(EXPANSIONS_PER_CHARGE);
+            }
+            if (this.expanded % EXPANSIONS_BETWEEN_FLUSHES == 0) {
+                sendBatches();
+            }
+        }
+
+        private void send(SearchNode node) {
+            int owner = owner(node.board);
+            if (workers[owner] == this) {
+                receive(node);
+                return;
+            }
+            this.batches[owner][this.batchSizes[owner]++] = node;
+            if (this.batchSizes[owner] == BATCH_SIZE) {
+                workers[owner].deliver(this.batches[owner]);
+                this.batches[owner] = new SearchNode[BATCH_SIZE];
+                this.batchSizes[owner] = 0;
+            }
+        }
+
+        private void sendBatches() {
+            for (int owner = 0; owner < this.batches.length; owner++) {
+                if (this.batchSizes[owner] > 0) {
+                    workers[owner].deliver(Arrays.copyOf(this.batches[owner], this.batchSizes[owner]));
+                    this.batchSizes[owner] = 0;
+                }
+            }
+        }
+    }
+
+    // scaling test: java HDAStar maxThreads puzzle.txt ...
+    // solves each puzzle with 1, 2, 4, ... up to maxThreads workers and with serial A*
+    public static void main(String[] args) {
+        int maxThreads = Integer.parseInt(args[0]);
+        StdOut.printf("%-24s %8s %8s %12s %10s %8s%n", "Puzzle", "Threads", "Moves", "Expanded", "ms", "Speedup");
+        for (int f = 1; f < args.length; f++) {
+            In in = new In(args[f]);
+            int n = in.readInt();
+            int[][] tiles = new int[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    tiles[i][j] = in.readInt();
+            Board initial = new Board(tiles);
+
+            // warm up
+            new Solver(initial);
+            new HDAStar(Heuristic.MANHATTAN, maxThreads, SearchLimit.NONE).solve(initial);
+
+            long start = System.nanoTime();
+            int moves = new Solver(initial).moves();
+            double serialMillis = (System.nanoTime() - start) / 1e6;
+            StdOut.printf("%-24s %8s %8d %12s %10.1f %8s%n", args[f], "A*", moves, "", serialMillis, "");
+
+            double oneThreadMillis = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                HDAStar search = new HDAStar(Heuristic.MANHATTAN, threads, SearchLimit.NONE);
+                start = System.nanoTime();
+                MoveSequence solution = search.solve(initial);
+                double millis = (System.nanoTime() - start) / 1e6;
+                if (threads == 1) {
+                    oneThreadMillis = millis;
+                }
+                StdOut.printf("%-24s %8d %8d %12d %10.1f %8.2f%n",
+                        args[f], threads, solution.length(), search.nodesExpanded(), millis, oneThreadMillis / millis);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// A heuristic for the A* search in Solver:
+// a lower bound on the number of moves needed to reach the goal board from a given board.
+// Solver returns a shortest solution for any heuristic that never overestimates,
+// and needs no search at all for a board on which the heuristic is exact.
+
+public interface Heuristic {
+
+    // number of tiles out of place
+    Heuristic HAMMING = Board::hamming;
+
+    // sum of Manhattan distances between tiles and goal
+    Heuristic MANHATTAN = Board::manhattan;
+
+    // Manhattan distance plus two moves for each tile that has to leave its goal row or column
+    // to let another tile in that line pass it
+    Heuristic LINEAR_CONFLICT = new LinearConflict();
+
+    // lower bound on the number of moves from board to the goal board
+    int estimate(Board board);
+
+    // the same lower bound for the n-by-n board with the given tiles in row-major order
+    // (0 for the blank square) and Manhattan distance, for searches that slide tiles in place
+    // (see IDAStar); builds the Board unless the heuristic can read the tiles directly
+    default int estimate(int[] tiles, int n, int manhattan) {
+        int[][] grid = new int[n][n];
+        for (int index = 0; index < n * n; index++) {
+            grid[index / n][index % n] = tiles[index];
+        }
+        return estimate(new Board(grid));
+    }
+
+    // is estimate(board) exactly the fewest moves from board to the goal board?
+    default boolean isExact(Board board) {
+        return false;
+    }
+
+    // the heuristic called hamming, manhattan or linear-conflict,
+    // or else the distance or pattern database stored in the file of that name
+    static Heuristic named(String name) {
+        switch (name) {
+            case "hamming":
+                return HAMMING;
+            case "manhattan":
+                return MANHATTAN;
+            case "linear-conflict":
+                return LINEAR_CONFLICT;
+            default:
+                if (DistanceDatabase.isDistanceDatabase(name)) {
+                    return DistanceDatabase.load(name);
+                }
+                return PatternDatabase.load(name);
+        }
+    }
+}
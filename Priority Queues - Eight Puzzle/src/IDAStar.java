@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+// Iterative deepening A* (IDA*).
+// Searches depth-first from the initial board, cutting off every path whose priority
+// (moves made plus heuristic estimate) exceeds a bound, and raises the bound to the smallest
+// priority that was cut off until the goal is reached within the bound.
+// With a heuristic that never overestimates, the first solution found is a shortest one.
+//
+// Unlike A*, no search nodes are kept: the search slides tiles in place on a single mutable
+// array of tiles and slides them back when it backtracks, so memory is proportional to the
+// length of the solution. The Manhattan and Hamming distances are updated in constant time
+// with each slide; other heuristics read the current tiles directly (see Heuristic).
+
+final class IDAStar {
+
+    private static final int FOUND = -1;
+
+    private final int n;
+    private final int[] tiles;
+    private final Heuristic heuristic;
+    private final SearchLimit limit;
+    private int[] blankMoves;
+    private int blankRow;
+    private int blankCol;
+    private int manhattan;
+    private int hamming;
+    private int depthOfSolution;
+    private long nodesExpanded;
+    private long nodesGenerated;
+
+    private IDAStar(Board initial, Heuristic heuristic, SearchLimit limit) {
+        this.n = initial.dimension();
+        this.tiles = new int[this.n * this.n];
+        for (int index = 0; index < this.n * this.n; index++) {
+            this.tiles[index] = initial.tileAt(index);
+        }
+        this.blankRow = initial.blankIndex() / this.n;
+        this.blankCol = initial.blankIndex() % this.n;
+        this.manhattan = initial.manhattan();
+        this.hamming = initial.hamming();
+        this.heuristic = heuristic;
+        this.limit = limit;
+        this.blankMoves = new int[0];
+    }
+
+    // the moves of the blank square in a shortest solution of initial, which must be solvable;
+    // every board visited is charged to limit, and the nodes expanded and generated
+    // are added to statistics (if not null)
+    static MoveSequence solve(Board initial, Heuristic heuristic, SearchLimit limit, SearchStatistics statistics) {
+        IDAStar search = new IDAStar(initial, heuristic, limit);
+
+        int bound = search.estimate();
+        while (true) {
+            // a path within the bound has at most bound moves
+            if (search.blankMoves.length < bound) {
+                search.blankMoves = new int[bound];
+            }
+            int smallestPriorityCutOff = search.search(0, bound, -1, -1);
+            if (smallestPriorityCutOff == FOUND) {
+                break;
+            }
+            bound = smallestPriorityCutOff;
+        }
+
+        if (statistics != null) {
+            statistics.add(search.nodesExpanded, search.nodesGenerated);
+        }
+        return new MoveSequence(Arrays.copyOf(search.blankMoves, search.depthOfSolution));
+    }
+
+    // Depth-first search below the current tiles, reached in numOfMovesMade moves.
+    // Returns FOUND if the goal is reached within bound (leaving the tiles at the goal),
+    // and otherwise the smallest priority above bound that was cut off.
+    private int search(int numOfMovesMade, int bound, int prevBlankRow, int prevBlankCol) {
+        this.limit.charge();
+        int priority = numOfMovesMade + estimate();
+        if (priority > bound) {
+            return priority;
+        }
+        if (this.manhattan == 0) {
+            this.depthOfSolution = numOfMovesMade;
+            return FOUND;
+        }
+
+        this.nodesExpanded++;
+        int smallestPriorityCutOff = Integer.MAX_VALUE;
+        for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+            int row = this.blankRow + (direction == Board.UP ? -1 : direction == Board.DOWN ? 1 : 0);
+            int col = this.blankCol + (direction == Board.LEFT ? -1 : direction == Board.RIGHT ? 1 : 0);
+            if (row < 0 || row >= this.n || col < 0 || col >= this.n || (row == prevBlankRow && col == prevBlankCol)) {
+                continue;
+            }
+
+            this.nodesGenerated++;
+            int fromRow = this.blankRow;
+            int fromCol = this.blankCol;
+            slideIntoBlank(row, col);
+            this.blankMoves[numOfMovesMade] = direction;
+            int result = search(numOfMovesMade + 1, bound, fromRow, fromCol);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            slideIntoBlank(fromRow, fromCol);
+            smallestPriorityCutOff = Math.min(smallestPriorityCutOff, result);
+        }
+        return smallestPriorityCutOff;
+    }
+
+    // slide the tile at (row, col), next to the blank square, into the blank square
+    private void slideIntoBlank(int row, int col) {
+        int from = row * this.n + col;
+        int to = this.blankRow * this.n + this.blankCol;
+        int tile = this.tiles[from];
+        int correctRow = (tile - 1) / this.n;
+        int correctCol = (tile - 1) % this.n;
+        this.manhattan += Math.abs(this.blankRow - correctRow) + Math.abs(this.blankCol - correctCol)
+                - Math.abs(row - correctRow) - Math.abs(col - correctCol);
+        this.hamming += (tile == from + 1 ? 1 : 0) - (tile == to + 1 ? 1 : 0);
+
+        this.tiles[to] = tile;
+        this.tiles[from] = 0;
+        this.blankRow = row;
+        this.blankCol = col;
+    }
+
+    private int estimate() {
+        if (this.heuristic == Heuristic.MANHATTAN) {
+            return this.manhattan;
+        }
+        if (this.heuristic == Heuristic.HAMMING) {
+            return this.hamming;
+        }
+        return this.heuristic.estimate(this.tiles, this.n, this.manhattan);
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.function.IntUnaryOperator;
+
+// Manhattan distance with linear conflicts.
+// Two tiles are in linear conflict if they are both in their goal row (or column)
+// but in the reverse order of their goal positions: one of them has to leave the line
+// and come back, which adds two moves to its Manhattan distance.
+// For each line, the fewest tiles that have to leave it are the ones not in a longest
+// subsequence of tiles whose goal positions are already in increasing order.
+// Leaving and re-entering a goal row takes two extra vertical moves and a goal column
+// two extra horizontal moves, none of which Manhattan distance counts,
+// so the row and column terms add up and the bound never overestimates.
+
+public class LinearConflict implements Heuristic {
+
+    @Override
+    public int estimate(Board board) {
+        return board.manhattan() + 2 * tilesLeavingLines(board.dimension(), board::tileAt);
+    }
+
+    @Override
+    public int estimate(int[] tiles, int n, int manhattan) {
+        return manhattan + 2 * tilesLeavingLines(n, index -> tiles[index]);
+    }
+
+    // fewest tiles that have to leave their goal row or column, over all rows and columns,
+    // of the n-by-n board with the tile tileAt(index) at each index
+    private static int tilesLeavingLines(int n, IntUnaryOperator tileAt) {
+        int[] goalPositionsInLine = new int[n];
+        int tilesLeavingLines = 0;
+
+        for (int row = 0; row < n; row++) {
+            int k = 0;
+            for (int col = 0; col < n; col++) {
+                int tile = tileAt.applyAsInt(row * n + col);
+                if (tile != 0 && (tile - 1) / n == row) {
+                    goalPositionsInLine[k++] = (tile - 1) % n;
+                }
+            }
+            tilesLeavingLines += k - longestIncreasingSubsequence(goalPositionsInLine, k);
+        }
+
+        for (int col = 0; col < n; col++) {
+            int k = 0;
+            for (int row = 0; row < n; row++) {
+                int tile = tileAt.applyAsInt(row * n + col);
+                if (tile != 0 && (tile - 1) % n == col) {
+                    goalPositionsInLine[k++] = (tile - 1) / n;
+                }
+            }
+            tilesLeavingLines += k - longestIncreasingSubsequence(goalPositionsInLine, k);
+        }
+
+        return tilesLeavingLines;
+    }
+
+    // length of a longest strictly increasing subsequence of the first k values (patience sorting)
+    private static int longestIncreasingSubsequence(int[] values, int k) {
+        int[] smallestTail = new int[k];
+        int length = 0;
+        for (int i = 0; i < k; i++) {
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (smallestTail[mid] < values[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            smallestTail[lo] = values[i];
+            if (lo == length) {
+                length++;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Move sequence.
+// A sequence of moves of the blank square (Board.UP, DOWN, LEFT or RIGHT), packed 2 bits per move
+// into an array of longs, so that an 80-move solution of the 4-by-4 puzzle takes 3 longs
+// instead of 81 boards. The boards along the sequence are replayed from the initial board
+// one move at a time, only as they are iterated.
+
+final class MoveSequence {
+
+    private static final int MOVES_PER_LONG = 32;
+
+    private final long[] packedMoves;
+    private final int length;
+
+    // the moves in the given order
+    MoveSequence(int[] directions) {
+        this.length = directions.length;
+        this.packedMoves = new long[(this.length + MOVES_PER_LONG - 1) / MOVES_PER_LONG];
+        for (int i = 0; i < this.length; i++) {
+            if (directions[i] < 0 || directions[i] > 3) {
+                throw new IllegalArgumentException("Unknown direction " + directions[i]);
+            }
+            this.packedMoves[i / MOVES_PER_LONG] |= (long) directions[i] << (2 * (i % MOVES_PER_LONG));
+        }
+    }
+
+    // number of moves
+    int length() {
+        return this.length;
+    }
+
+    // direction of the i-th move
+    int direction(int i) {
+        if (i < 0 || i >= this.length) {
+            throw new IndexOutOfBoundsException("Move " + i + " of " + this.length);
+        }
+        return (int) (this.packedMoves[i / MOVES_PER_LONG] >>> (2 * (i % MOVES_PER_LONG))) & 3;
+    }
+
+    // the boards from initial through each move in turn (length() + 1 boards)
+    Iterable<Board> replay(Board initial) {
+        return () -> new Iterator<Board>() {
+            private Board board = null;
+            private int movesMade = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.board == null || this.movesMade < length;
+            }
+
+            @Override
+            public Board next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (this.board == null) {
+                    this.board = initial;
+                } else {
+                    this.board = this.board.moveBlank(direction(this.movesMade++));
+                }
+                return this.board;
+            }
+        };
+    }
+}
@@ -0,0 +1,309 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+// Additive disjoint pattern database heuristic.
+// The tiles are split into disjoint groups (for example 6-6-3 for the 4-by-4 puzzle).
+// For each group, the database stores the fewest moves of that group's tiles needed to bring
+// them from any placement to their goal positions, ignoring the identity of all other tiles.
+// Since only moves of the group's own tiles are counted and every move moves a single tile,
+// the values of disjoint groups can be added and still never overestimate.
+//
+// The databases are generated offline by a retrograde breadth-first search from the goal
+// (see main) into a compact file of one byte per placement of each group, and are
+// memory-mapped when loaded, so that solving does not have to read the whole file.
+
+public class PatternDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x50444231;
+    private static final int UNVISITED = 0xFF;
+    private static final int MAX_DIMENSION = 4;
+
+    // the 6-6-3 partition of the 4-by-4 puzzle
+    public static final int[][] GROUPS_663 = {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+
+    private final int n;
+    private final int[][] groups;
+    private final ByteBuffer[] tables;
+
+    private PatternDatabase(int n, int[][] groups, ByteBuffer[] tables) {
+        this.n = n;
+        this.groups = groups;
+        this.tables = tables;
+    }
+
+    // load a database written by generate
+    public static PatternDatabase load(String filename) {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException(filename + " is not a pattern database");
+            }
+            int n = buffer.getInt();
+            int[][] groups = new int[buffer.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[buffer.getInt()];
+                for (int i = 0; i < groups[g].length; i++) {
+                    groups[g][i] = buffer.getInt();
+                }
+            }
+
+            ByteBuffer[] tables = new ByteBuffer[groups.length];
+            for (int g = 0; g < groups.length; g++) {
+                int size = placements(n * n, groups[g].length);
+                ByteBuffer table = buffer.slice();
+                table.limit(size);
+                tables[g] = table;
+                buffer.position(buffer.position() + size);
+            }
+            return new PatternDatabase(n, groups, tables);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load pattern database " + filename, e);
+        }
+    }
+
+    @Override
+    public int estimate(Board board) {
+        checkDimension(board.dimension());
+        return estimate(board::tileAt, board.manhattan());
+    }
+
+    @Override
+    public int estimate(int[] tiles, int n, int manhattan) {
+        checkDimension(n);
+        return estimate(index -> tiles[index], manhattan);
+    }
+
+    private void checkDimension(int n) {
+        if (n != this.n) {
+            throw new IllegalArgumentException("Pattern database is for " + this.n + "-by-" + this.n + " boards");
+        }
+    }
+
+    // estimate for the board with the tile tileAt(index) at each index and the given Manhattan distance
+    private int estimate(IntUnaryOperator tileAt, int manhattan) {
+        int cells = this.n * this.n;
+        int[] cellOfTile = new int[cells];
+        for (int index = 0; index < cells; index++) {
+            cellOfTile[tileAt.applyAsInt(index)] = index;
+        }
+
+        int[] cellsOfGroup = new int[cells];
+        int sumOfMoves = 0;
+        for (int g = 0; g < this.groups.length; g++) {
+            int[] group = this.groups[g];
+            for (int i = 0; i < group.length; i++) {
+                cellsOfGroup[i] = cellOfTile[group[i]];
+            }
+            sumOfMoves += this.tables[g].get(rank(cellsOfGroup, group.length, cells)) & 0xFF;
+        }
+        // the groups need not cover every tile, so Manhattan distance may still be the better bound
+        return Math.max(sumOfMoves, manhattan);
+    }
+
+    // number of placements of k distinct tiles on N cells: N * (N-1) * ... * (N-k+1)
+    private static int placements(int N, int k) {
+        long count = 1;
+        for (int i = 0; i < k; i++) {
+            count *= N - i;
+        }
+        if (count * N > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern of " + k + " tiles is too large for " + N + " cells");
+        }
+        return (int) count;
+    }
+
+    // index of a placement of k tiles (given by their cells) among all placements on N cells,
+    // in lexicographic order
+    static int rank(int[] cells, int k, int N) {
+        int rank = 0;
+        for (int i = 0; i < k; i++) {
+            int smallerUnusedCells = cells[i];
+            for (int j = 0; j < i; j++) {
+                if (cells[j] < cells[i]) {
+                    smallerUnusedCells--;
+                }
+            }
+            rank = rank * (N - i) + smallerUnusedCells;
+        }
+        return rank;
+    }
+
+    // Write the database for the given groups of tiles of the n-by-n puzzle to a file.
+    // For each group, a breadth-first search backwards from the goal runs over states made of
+    // the cells of the group's tiles and the blank square: moving the blank onto another tile
+    // of the group costs one move, and onto any other tile costs nothing.
+    // The stored value of a placement is the fewest moves over all cells of the blank.
+    public static void generate(int n, int[][] groups, String filename) {
+        if (n < 2 || n > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Pattern databases can be generated for 2-by-2 up to 4-by-4 boards");
+        }
+        checkDisjointGroups(n, groups);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(groups.length);
+            for (int[] group : groups) {
+                out.writeInt(group.length);
+                for (int tile : group) {
+                    out.writeInt(tile);
+                }
+            }
+            for (int[] group : groups) {
+                out.write(searchBackwardsFromGoal(n, group));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write pattern database " + filename, e);
+        }
+    }
+
+    private static void checkDisjointGroups(int n, int[][] groups) {
+        boolean[] used = new boolean[n * n];
+        for (int[] group : groups) {
+            for (int tile : group) {
+                if (tile < 1 || tile >= n * n || used[tile]) {
+                    throw new IllegalArgumentException("Groups must be disjoint sets of tiles 1 to " + (n * n - 1));
+                }
+                used[tile] = true;
+            }
+        }
+    }
+
+    // A state is packed into a long: the blank's cell in bits 0-3,
+    // and the cell of the i-th tile of the group in bits 4(i+1) to 4(i+1)+3.
+    private static byte[] searchBackwardsFromGoal(int n, int[] group) {
+        int N = n * n;
+        int k = group.length;
+        byte[] fewestMoves = new byte[placements(N, k) * N];
+        Arrays.fill(fewestMoves, (byte) UNVISITED);
+
+        long goal = N - 1;
+        for (int i = 0; i < k; i++) {
+            goal |= (long) (group[i] - 1) << (4 * (i + 1));
+        }
+        fewestMoves[stateIndex(goal, k, N)] = 0;
+
+        // states at the current number of moves are processed as a stack, onto which
+        // free moves push more states at the same number of moves
+        LongStack current = new LongStack();
+        current.push(goal);
+        int[] cells = new int[k];
+        for (int moves = 0; !current.isEmpty(); moves++) {
+            LongStack next = new LongStack();
+            while (!current.isEmpty()) {
+                long state = current.pop();
+                if ((fewestMoves[stateIndex(state, k, N)] & 0xFF) != moves) {
+                    continue;
+                }
+
+                int blank = (int) (state & 0xF);
+                int blankRow = blank / n;
+                int blankCol = blank % n;
+                for (int direction = 0; direction < 4; direction++) {
+                    int row = blankRow + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                    int col = blankCol + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                    if (row < 0 || row >= n || col < 0 || col >= n) {
+                        continue;
+                    }
+                    int cell = row * n + col;
+
+                    long neighbor = state & ~0xFL | cell;
+                    int cost = moves;
+                    for (int i = 0; i < k; i++) {
+                        int shift = 4 * (i + 1);
+                        if ((int) (state >>> shift & 0xF) == cell) {
+                            neighbor = neighbor & ~(0xFL << shift) | (long) blank << shift;
+                            cost = moves + 1;
+                            break;
+                        }
+                    }
+
+                    int index = stateIndex(neighbor, k, N, cells);
+                    if ((fewestMoves[index] & 0xFF) > cost) {
+                        fewestMoves[index] = (byte) cost;
+                        (cost == moves ? current : next).push(neighbor);
+                    }
+                }
+            }
+            current = next;
+        }
+
+        // keep the fewest moves over all cells of the blank
+        byte[] table = new byte[placements(N, k)];
+        for (int placement = 0; placement < table.length; placement++) {
+            int min = UNVISITED;
+            for (int blank = 0; blank < N; blank++) {
+                min = Math.min(min, fewestMoves[placement * N + blank] & 0xFF);
+            }
+            table[placement] = (byte) min;
+        }
+        return table;
+    }
+
+    private static int stateIndex(long state, int k, int N) {
+        return stateIndex(state, k, N, new int[k]);
+    }
+
+    private static int stateIndex(long state, int k, int N, int[] cells) {
+        for (int i = 0; i < k; i++) {
+            cells[i] = (int) (state >>> (4 * (i + 1)) & 0xF);
+        }
+        return rank(cells, k, N) * N + (int) (state & 0xF);
+    }
+
+    // growable stack of longs, to keep tens of millions of states without boxing
+    private static final class LongStack {
+        private long[] items = new long[1024];
+        private int size;
+
+        void push(long item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = item;
+        }
+
+        long pop() {
+            return items[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    // generate a database: java PatternDatabase n filename [group ...]
+    // where each group is a comma-separated list of tiles, e.g.
+    // java PatternDatabase 4 pdb663.bin 1,5,6,9,10,13 7,8,11,12,14,15 2,3,4
+    // (the 6-6-3 partition is the default for n = 4)
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        String filename = args[1];
+        int[][] groups;
+        if (args.length > 2) {
+            groups = new int[args.length - 2][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = Arrays.stream(args[g + 2].split(",")).mapToInt(Integer::parseInt).toArray();
+            }
+        } else if (n == 4) {
+            groups = GROUPS_663;
+        } else {
+            throw new IllegalArgumentException("Groups of tiles must be given for " + n + "-by-" + n + " boards");
+        }
+
+        long start = System.nanoTime();
+        generate(n, groups, filename);
+        StdOut.printf("Generated %s in %.1f s%n", filename, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,80 @@
+// Search limit.
+// A budget of search nodes expanded and of wall-clock time for one search.
+// The search charges the limit once per node it expands; when either budget runs out,
+// or the thread running the search is interrupted, charging throws a SearchLimit.ExceededException.
+// The clock is only read every CLOCK_CHECK_INTERVAL nodes, so charging is cheap.
+
+final class SearchLimit {
+
+    // no limit on nodes or time
+    static final SearchLimit NONE = new SearchLimit(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    // thrown by charge when the search has to stop
+    static final class ExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private final long maxNodes;
+    private final long timeLimitNanos;
+    private final long start;
+    private long nodesExpanded;
+
+    // maxNodes search nodes and timeLimitMillis milliseconds, counted from now;
+    // Long.MAX_VALUE for either means no limit
+    SearchLimit(long maxNodes, long timeLimitMillis) {
+        if (maxNodes <= 0 || timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.maxNodes = maxNodes;
+        this.timeLimitNanos = timeLimitMillis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : timeLimitMillis * 1_000_000;
+        this.start = System.nanoTime();
+    }
+
+    // count one expanded search node
+    void charge() {
+        if (this == NONE) {
+            return;
+        }
+        this.nodesExpanded++;
+        if (this.nodesExpanded > this.maxNodes) {
+            throw new ExceededException("Node budget of " + this.maxNodes + " exceeded");
+        }
+        if (this.nodesExpanded % CLOCK_CHECK_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new ExceededException("Interrupted after " + this.nodesExpanded + " nodes");
+            }
+            if (System.nanoTime() - this.start > this.timeLimitNanos) {
+                throw new ExceededException("Time budget of " + this.timeLimitNanos / 1_000_000 + " ms exceeded");
+            }
+        }
+    }
+
+    // count a batch of nodes expanded by one of several threads searching together;
+    // safe to call from many threads, and checks the clock on every call
+    synchronized void chargeBatch(int nodes) {
+        if (this == NONE) {
+            return;
+        }
+        this.nodesExpanded += nodes;
+        if (this.nodesExpanded > this.maxNodes) {
+            throw new ExceededException("Node budget of " + this.maxNodes + " exceeded");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ExceededException("Interrupted after " + this.nodesExpanded + " nodes");
+        }
+        if (System.nanoTime() - this.start > this.timeLimitNanos) {
+            throw new ExceededException("Time budget of " + this.timeLimitNanos / 1_000_000 + " ms exceeded");
+        }
+    }
+
+    // number of search nodes charged so far
+    long nodesExpanded() {
+        return this.nodesExpanded;
+    }
+}
@@ -0,0 +1,134 @@
+import java.lang.management.ManagementFactory;
+
+// Search statistics.
+// Opt-in counters for what a Solver did to find its solution: how many search nodes it expanded
+// and generated, how many it skipped because their board had already been reached in no more moves,
+// the peak size of its priority queue, the time spent in each phase (checking solvability,
+// searching, and retracing the solution path), and the bytes allocated per expanded search node.
+// A* and bidirectional A* record all of them; IDA* and HDA* record the nodes expanded and generated
+// and the phase times only. The counters add up over every Solver given the same statistics.
+// Not safe to share between Solvers running on different threads.
+
+public class SearchStatistics {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTERS = allocationCounters();
+
+    private long nodesExpanded;
+    private long nodesGenerated;
+    private long duplicatesSkipped;
+    private int peakOpenListSize;
+    private long solvabilityNanos;
+    private long searchNanos;
+    private long pathNanos;
+    private long bytesAllocated;
+
+    void expanded() {
+        nodesExpanded++;
+    }
+
+    void generated() {
+        nodesGenerated++;
+    }
+
+    void duplicateSkipped() {
+        duplicatesSkipped++;
+    }
+
+    void openListSize(int size) {
+        peakOpenListSize = Math.max(peakOpenListSize, size);
+    }
+
+    // record the counts of a search that kept its own counters
+    void add(long expanded, long generated) {
+        nodesExpanded += expanded;
+        nodesGenerated += generated;
+    }
+
+    // record the time spent retracing a solution path
+    void retraced(long nanos) {
+        pathNanos += nanos;
+    }
+
+    // record the time of the other phases of one Solver, and the bytes it allocated (-1 if unknown)
+    void phases(long solvability, long search, long bytes) {
+        solvabilityNanos += solvability;
+        searchNanos += search;
+        if (bytes < 0 || bytesAllocated < 0) {
+            bytesAllocated = -1;
+        } else {
+            bytesAllocated += bytes;
+        }
+    }
+
+    // bytes allocated so far by the solving thread; -1 if the JVM does not report it
+    static long allocatedBytes() {
+        return ALLOCATION_COUNTERS == null ? -1 : ALLOCATION_COUNTERS.getCurrentThreadAllocatedBytes();
+    }
+
+    // the per-thread allocation counters of the JVM, looked up once rather than on every Solver;
+    // null if the JVM does not keep them
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return (com.sun.management.ThreadMXBean) threads;
+        }
+        return null;
+    }
+
+    // number of search nodes taken off the priority queue and expanded
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    // number of neighboring boards generated by expanding search nodes
+    public long nodesGenerated() {
+        return nodesGenerated;
+    }
+
+    // number of generated or dequeued search nodes skipped because their board
+    // had already been reached in no more moves
+    public long duplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    // largest number of search nodes on the priority queue at once
+    public int peakOpenListSize() {
+        return peakOpenListSize;
+    }
+
+    // time spent checking whether the initial board is solvable, in nanoseconds
+    public long solvabilityNanos() {
+        return solvabilityNanos;
+    }
+
+    // time spent searching, in nanoseconds
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    // time spent retracing the solution path from the search, in nanoseconds
+    public long pathNanos() {
+        return pathNanos;
+    }
+
+    // bytes allocated by the solving thread per expanded search node; NaN if the JVM does not report it
+    public double bytesPerExpandedNode() {
+        if (bytesAllocated < 0) {
+            return Double.NaN;
+        }
+        return (double) bytesAllocated / Math.max(nodesExpanded, 1);
+    }
+
+    // snapshot of the statistics as one line
+    public String summary() {
+        return "expanded=" + nodesExpanded()
+                + " generated=" + nodesGenerated()
+                + " duplicates=" + duplicatesSkipped()
+                + " peakQueue=" + peakOpenListSize()
+                + " solvability=" + solvabilityNanos() / 1000 + "us"
+                + " search=" + searchNanos() / 1000 + "us"
+                + " path=" + pathNanos() / 1000 + "us"
+                + String.format(" bytes/expanded=%.1f", bytesPerExpandedNode());
+    }
+}
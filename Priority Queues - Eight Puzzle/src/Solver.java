@@ -2,35 +2,50 @@ import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.StdOut;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.HashMap;
 
 public class Solver {
 
-    private List<Board> boardsInSolutionPath;
+    // The search algorithms Solver can use.
+    // A_STAR keeps every search node, in a priority queue; it is the fastest
+    // but its memory grows with the number of boards it has seen.
+    // A_STAR_BUCKETS is A* with the priority queue replaced by buckets indexed by priority
+    // (see BucketQueue), which breaks ties in favour of search nodes with more moves made.
+    // IDA_STAR searches depth-first with an increasing bound on the priority;
+    // it revisits boards on every deepening, but its memory is proportional to the solution length.
+    // BIDIRECTIONAL_A_STAR searches forward from the initial board and backward from the goal board
+    // at the same time, until the two searches meet on a shortest solution.
+    // HDA_STAR is A* spread over one worker thread per available processor (see HDAStar).
+    public enum Algorithm { A_STAR, A_STAR_BUCKETS, IDA_STAR, BIDIRECTIONAL_A_STAR, HDA_STAR }
 
-    // We define a search node of the game to be a board,
-    // the number of moves made to reach the board, and the previous search node.
+    // The solution is kept as the moves of the blank square from the initial board,
+    // 2 bits per move, and its boards are replayed only when solution() is iterated.
+    private Board initial;
+    private MoveSequence solutionMoves;
 
-    // Caching the Hamming and Manhattan priorities.
-    // To avoid recomputing the Manhattan priority of a search node
-    // from scratch each time during various priority queue operations,
+    // We define a search node of the game to be a board and the number of moves made to reach the board.
+    // It does not refer to the previous search node: the search keeps the last move to each board
+    // it has reached instead, so that the path to a board can be retraced backwards, and each search node
+    // (and the board in it) can be garbage-collected as soon as it has been expanded.
+
+    // Caching the priority.
+    // To avoid recomputing the priority (the heuristic estimate plus the number of moves made)
+    // of a search node from scratch each time during various priority queue operations,
     // pre-compute its value when we construct the search node;
     // save it in an instance variable; and return the saved value as needed.
 
     private static final class SearchNode {
         private final Board board;
         private final int numOfMovesMade;
-        private final SearchNode prevSearchNode;
-        private final int manhattanPriority;
+        private final int priority;
 
-        public SearchNode(Board board, int numOfMovesMade, SearchNode prevSearchNode) {
+        public SearchNode(Board board, int numOfMovesMade, Heuristic heuristic) {
             this.board = board;
             this.numOfMovesMade = numOfMovesMade;
-            this.prevSearchNode = prevSearchNode;
-            this.manhattanPriority = board.manhattan() + numOfMovesMade;
+            this.priority = heuristic.estimate(board) + numOfMovesMade;
         }
 
         public Board getBoard() {
@@ -41,79 +56,389 @@ public class Solver {
             return this.numOfMovesMade;
         }
 
-        public SearchNode getPrevNode() {
-            return this.prevSearchNode;
+        public int getPriority() {
+            return this.priority;
+        }
+    }
+
+    private static class ByPriority implements Comparator<SearchNode> {
+        @Override
+        public int compare(SearchNode a, SearchNode b) {
+            return a.getPriority() - b.getPriority();
+        }
+    }
+
+    // The priority queue of search nodes that have yet to be expanded.
+    private interface OpenList {
+        void insert(SearchNode node);
+
+        SearchNode delMin();
+
+        // smallest priority of a search node on the queue; Integer.MAX_VALUE if there is none
+        int minPriority();
+
+        int size();
+    }
+
+    // algs4's binary heap, ordered by priority
+    private static final class BinaryHeapOpenList implements OpenList {
+        private final MinPQ<SearchNode> pq = new MinPQ<>(new ByPriority());
+
+        public void insert(SearchNode node) {
+            pq.insert(node);
+        }
+
+        public SearchNode delMin() {
+            return pq.delMin();
+        }
+
+        public int minPriority() {
+            return pq.isEmpty() ? Integer.MAX_VALUE : pq.min().getPriority();
         }
 
-        public int getManhattanPriority() {
-            return this.manhattanPriority;
+        public int size() {
+            return pq.size();
         }
     }
 
-    private static class ByManhattanPriority implements Comparator<SearchNode> {
+    // buckets indexed by priority, preferring search nodes with more moves made within a bucket
+    private static final class BucketOpenList implements OpenList {
+        private final BucketQueue<SearchNode> buckets = new BucketQueue<>();
+
+        public void insert(SearchNode node) {
+            buckets.insert(node, node.getPriority(), node.getNumMoves());
+        }
+
+        public SearchNode delMin() {
+            return buckets.delMin();
+        }
+
+        public int minPriority() {
+            return buckets.isEmpty() ? Integer.MAX_VALUE : buckets.minPriority();
+        }
+
+        public int size() {
+            return buckets.size();
+        }
+    }
+
+    // The state of one A* search: the heuristic, the priority queue of search nodes,
+    // and for each board that has been put on the queue, the fewest moves found so far to it
+    // and the last of those moves (packed into one int as moves << 2 | direction).
+    // A search node is only put on the queue if it reaches its board in fewer moves than before,
+    // and a dequeued node is skipped if its board has since been reached in fewer moves,
+    // so each board is expanded at most once with its fewest moves
+    // (and exactly once if the heuristic is consistent, like Manhattan distance).
+    //
+    // In a bidirectional search, opposite is the search from the other end, and the search keeps
+    // the board on the shortest path found so far through a board reached by both searches.
+    private static final class Search {
+        private final Heuristic heuristic;
+        private final OpenList pq;
+        private final Map<Board, Integer> lastMoveTo;
+        private SearchStatistics statistics;
+        private Search opposite;
+        private Board meetingBoard;
+        private int shortestPathThroughMeetingBoard;
+
+        public Search(Board initial, Heuristic heuristic, OpenList pq) {
+            this.heuristic = heuristic;
+            this.pq = pq;
+            this.lastMoveTo = new HashMap<>();
+            this.pq.insert(new SearchNode(initial, 0, heuristic));
+            this.lastMoveTo.put(initial, 0);
+            this.shortestPathThroughMeetingBoard = Integer.MAX_VALUE;
+        }
+
+        // fewest moves found so far to board; Integer.MAX_VALUE if it has not been reached
+        public int fewestMovesTo(Board board) {
+            Integer lastMove = this.lastMoveTo.get(board);
+            return lastMove == null ? Integer.MAX_VALUE : lastMove >>> 2;
+        }
+
+        public void reach(Board board, int numOfMovesMade, int direction) {
+            this.lastMoveTo.put(board, numOfMovesMade << 2 | direction);
+        }
+
+        // The moves from the initial board of this search to board, in order,
+        // retraced backwards by undoing the last move to each board.
+        // Each board on the way was reached in fewer moves than the board after it,
+        // so the retracing ends at the initial board, the only board reached in 0 moves.
+        public int[] movesTo(Board board) {
+            int[] directions = new int[fewestMovesTo(board)];
+            int i = directions.length;
+            for (int lastMove = this.lastMoveTo.get(board); lastMove >>> 2 > 0; lastMove = this.lastMoveTo.get(board)) {
+                directions[--i] = lastMove & 3;
+                board = board.moveBlank(lastMove & 3 ^ 1);
+            }
+            return Arrays.copyOfRange(directions, i, directions.length);
+        }
+    }
+
+    // Manhattan distance to a fixed target board instead of the goal board,
+    // the heuristic of the backward search of BIDIRECTIONAL_A_STAR
+    private static final class ManhattanTo implements Heuristic {
+        private final int n;
+        private final int[] targetRowOfTile;
+        private final int[] targetColOfTile;
+
+        public ManhattanTo(Board target) {
+            this.n = target.dimension();
+            this.targetRowOfTile = new int[this.n * this.n];
+            this.targetColOfTile = new int[this.n * this.n];
+            for (int index = 0; index < this.n * this.n; index++) {
+                this.targetRowOfTile[target.tileAt(index)] = index / this.n;
+                this.targetColOfTile[target.tileAt(index)] = index % this.n;
+            }
+        }
+
         @Override
-        public int compare(SearchNode a, SearchNode b) {
-            return a.getManhattanPriority() - b.getManhattanPriority();
+        public int estimate(Board board) {
+            int manhattan = 0;
+            for (int index = 0; index < this.n * this.n; index++) {
+                int tile = board.tileAt(index);
+                if (tile != 0) {
+                    manhattan += Math.abs(index / this.n - this.targetRowOfTile[tile])
+                            + Math.abs(index % this.n - this.targetColOfTile[tile]);
+                }
+            }
+            return manhattan;
         }
     }
 
-    // Find a solution to the initial board (using the A* search algorithm)
+    // Find a solution to the initial board (using the A* search algorithm with Manhattan distance)
     public Solver(Board initial) {
-        if (initial == null) {
-            throw new IllegalArgumentException("Argument cannot be null");
+        this(initial, Heuristic.MANHATTAN);
+    }
+
+    // Find a solution to the initial board (using the A* search algorithm with the given heuristic)
+    public Solver(Board initial, Heuristic heuristic) {
+        this(initial, heuristic, Algorithm.A_STAR);
+    }
+
+    // Find a solution to the initial board (using the given search algorithm and heuristic)
+    public Solver(Board initial, Heuristic heuristic, Algorithm algorithm) {
+        this(initial, heuristic, algorithm, SearchLimit.NONE);
+    }
+
+    // Find a solution to the initial board (using the given search algorithm and heuristic),
+    // and add what the search did to statistics
+    public Solver(Board initial, Heuristic heuristic, Algorithm algorithm, SearchStatistics statistics) {
+        this(initial, heuristic, algorithm, SearchLimit.NONE, statistics);
+    }
+
+    // Find a solution to the initial board within a budget of nodes and time;
+    // throws SearchLimit.ExceededException if the budget runs out first
+    Solver(Board initial, Heuristic heuristic, Algorithm algorithm, SearchLimit limit) {
+        this(initial, heuristic, algorithm, limit, null);
+    }
+
+    private Solver(Board initial, Heuristic heuristic, Algorithm algorithm, SearchLimit limit, SearchStatistics statistics) {
+        if (initial == null || heuristic == null || algorithm == null || limit == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
         }
 
-        this.boardsInSolutionPath = new ArrayList<>();
+        this.initial = initial;
+        long bytesBefore = statistics == null ? 0 : SearchStatistics.allocatedBytes();
+        long start = System.nanoTime();
 
-        MinPQ<SearchNode> pq = new MinPQ<>(new ByManhattanPriority());
-        pq.insert(new SearchNode(initial, 0, null));
-        MinPQ<SearchNode> pqTwin = new MinPQ<>(new ByManhattanPriority());
-        pqTwin.insert(new SearchNode(initial.twin(), 0, null));
+        // Unsolvable boards are ruled out up front by their parity,
+        // so only the initial board itself is ever searched.
+        boolean solvable = initial.isSolvable();
+        long solvabilityChecked = System.nanoTime();
+        long pathNanosBefore = statistics == null ? 0 : statistics.pathNanos();
+        if (solvable) {
+            this.solutionMoves = solve(initial, heuristic, algorithm, limit, statistics);
+        }
 
-        SearchNode latestDequeuedNode = null, latestDequeuedNodeTwin = null;
+        if (statistics != null) {
+            long searchAndPath = System.nanoTime() - solvabilityChecked;
+            long bytesAfter = SearchStatistics.allocatedBytes();
+            statistics.phases(solvabilityChecked - start, searchAndPath - (statistics.pathNanos() - pathNanosBefore),
+                    bytesBefore < 0 ? -1 : bytesAfter - bytesBefore);
+        }
+    }
 
+    // the moves of a shortest solution of the solvable initial board
+    private MoveSequence solve(Board initial, Heuristic heuristic, Algorithm algorithm, SearchLimit limit,
+                               SearchStatistics statistics) {
+        if (heuristic.isExact(initial)) {
+            return descend(initial, heuristic);
+        }
+        if (algorithm == Algorithm.IDA_STAR) {
+            return IDAStar.solve(initial, heuristic, limit, statistics);
+        }
+        if (algorithm == Algorithm.HDA_STAR) {
+            HDAStar search = new HDAStar(heuristic, Runtime.getRuntime().availableProcessors(), limit);
+            MoveSequence solution = search.solve(initial);
+            if (statistics != null) {
+                statistics.add(search.nodesExpanded(), search.nodesGenerated());
+            }
+            return solution;
+        }
+        if (algorithm == Algorithm.BIDIRECTIONAL_A_STAR) {
+            return searchBidirectionally(initial, heuristic, limit, statistics);
+        }
+
+        OpenList pq = algorithm == Algorithm.A_STAR_BUCKETS ? new BucketOpenList() : new BinaryHeapOpenList();
+        Search search = new Search(initial, heuristic, pq);
+        search.statistics = statistics;
+        SearchNode latestDequeuedNode;
         do {
-            latestDequeuedNode = deleteAndInsertOntoPQ(pq);
-            latestDequeuedNodeTwin = deleteAndInsertOntoPQ(pqTwin);
-        } while (!latestDequeuedNode.getBoard().isGoal() && !latestDequeuedNodeTwin.getBoard().isGoal());
-
-        if (latestDequeuedNode.getBoard().isGoal()) {
-            this.boardsInSolutionPath.add(latestDequeuedNode.getBoard());
-            while (latestDequeuedNode.getPrevNode() != null) {
-                this.boardsInSolutionPath.add(latestDequeuedNode.getPrevNode().getBoard());
-                latestDequeuedNode = latestDequeuedNode.getPrevNode();
+            latestDequeuedNode = deleteAndInsertOntoPQ(search);
+            limit.charge();
+        } while (!latestDequeuedNode.getBoard().isGoal());
+
+        long pathStart = System.nanoTime();
+        MoveSequence solution = new MoveSequence(search.movesTo(latestDequeuedNode.getBoard()));
+        if (statistics != null) {
+            statistics.retraced(System.nanoTime() - pathStart);
+        }
+        return solution;
+    }
+
+    // A shortest solution without search, for a heuristic that is exact on initial:
+    // from every board but the goal, some move leads to a board exactly one move closer to the goal.
+    private static MoveSequence descend(Board initial, Heuristic heuristic) {
+        int[] directions = new int[heuristic.estimate(initial)];
+        Board board = initial;
+        for (int i = 0; i < directions.length; i++) {
+            Board closer = null;
+            for (int direction = Board.UP; direction <= Board.RIGHT && closer == null; direction++) {
+                Board neighbor = board.moveBlank(direction);
+                if (neighbor != null && heuristic.estimate(neighbor) == directions.length - i - 1) {
+                    closer = neighbor;
+                    directions[i] = direction;
+                }
+            }
+            if (closer == null) {
+                throw new IllegalStateException("Heuristic is not exact on " + board);
             }
-            Collections.reverse(this.boardsInSolutionPath);
+            board = closer;
         }
+        return new MoveSequence(directions);
     }
 
     // Implementation of deleting from the priority queue
-    // the search node with the minimum priority,
-    // and inserting onto the priority queue all neighboring search nodes
-    private SearchNode deleteAndInsertOntoPQ(MinPQ<SearchNode> pq) {
+    // the search node with the minimum priority that still reaches its board in the fewest moves,
+    // and inserting onto the priority queue the neighboring search nodes
+    // that reach their board in fewer moves than before.
+    // The goal is reachable, so the priority queue never runs out of search nodes before it is dequeued.
+    private SearchNode deleteAndInsertOntoPQ(Search search) {
 
-        SearchNode latestDequeuedNode = pq.delMin();
+        SearchStatistics statistics = search.statistics;
+        SearchNode latestDequeuedNode = search.pq.delMin();
+        while (latestDequeuedNode.getNumMoves() > search.fewestMovesTo(latestDequeuedNode.getBoard())) {
+            if (statistics != null) {
+                statistics.duplicateSkipped();
+            }
+            latestDequeuedNode = search.pq.delMin();
+        }
+        if (statistics != null) {
+            statistics.expanded();
+        }
 
-        for (Board neighboringBoard : latestDequeuedNode.getBoard().neighbors()) {
-            boolean isDuplicatedBoard = false;
-            if (latestDequeuedNode.getPrevNode() != null) {
-                isDuplicatedBoard = neighboringBoard.equals(latestDequeuedNode.getPrevNode().getBoard());
+        int numOfMovesToNeighbor = latestDequeuedNode.getNumMoves() + 1;
+        for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+            Board neighboringBoard = latestDequeuedNode.getBoard().moveBlank(direction);
+            if (neighboringBoard == null) {
+                continue;
             }
-            if (!isDuplicatedBoard) {
-                pq.insert(new SearchNode(neighboringBoard, latestDequeuedNode.getNumMoves() + 1, latestDequeuedNode));
+            if (statistics != null) {
+                statistics.generated();
             }
+            if (numOfMovesToNeighbor < search.fewestMovesTo(neighboringBoard)) {
+                SearchNode neighbor = new SearchNode(neighboringBoard, numOfMovesToNeighbor, search.heuristic);
+                search.reach(neighboringBoard, numOfMovesToNeighbor, direction);
+                search.pq.insert(neighbor);
+                if (search.opposite != null) {
+                    recordMeeting(search, neighbor);
+                }
+            } else if (statistics != null) {
+                statistics.duplicateSkipped();
+            }
+        }
+        if (statistics != null) {
+            statistics.openListSize(search.opposite == null ? search.pq.size() : search.pq.size() + search.opposite.pq.size());
         }
         return latestDequeuedNode;
     }
 
+    // if the opposite search has also reached the board of node,
+    // and the path through it is the shortest so far, remember the board
+    private static void recordMeeting(Search search, SearchNode node) {
+        int oppositeMoves = search.opposite.fewestMovesTo(node.getBoard());
+        if (oppositeMoves == Integer.MAX_VALUE) {
+            return;
+        }
+        int pathLength = node.getNumMoves() + oppositeMoves;
+        if (pathLength < search.shortestPathThroughMeetingBoard) {
+            search.shortestPathThroughMeetingBoard = pathLength;
+            search.meetingBoard = node.getBoard();
+            search.opposite.shortestPathThroughMeetingBoard = pathLength;
+            search.opposite.meetingBoard = node.getBoard();
+        }
+    }
+
+    // Bidirectional A*.
+    // The forward search from the initial board uses the given heuristic; the backward search
+    // from the goal board uses the Manhattan distance to the initial board. The search with the
+    // fewer search nodes on its queue is expanded next, and every board put on a queue is looked
+    // up in the other search's table to find where the two searches meet.
+    // Every solution passes through a search node on each queue with priority at most its length,
+    // so once the shortest path through a meeting board is no longer than the smallest priority
+    // on either queue, no shorter solution remains to be found.
+    private MoveSequence searchBidirectionally(Board initial, Heuristic heuristic, SearchLimit limit,
+                                               SearchStatistics statistics) {
+        Search forward = new Search(initial, heuristic, new BucketOpenList());
+        Search backward = new Search(goalBoard(initial.dimension()), new ManhattanTo(initial), new BucketOpenList());
+        forward.opposite = backward;
+        backward.opposite = forward;
+        forward.statistics = statistics;
+        backward.statistics = statistics;
+        recordMeeting(forward, new SearchNode(initial, 0, heuristic));
+
+        while (forward.shortestPathThroughMeetingBoard > Math.max(forward.pq.minPriority(), backward.pq.minPriority())) {
+            deleteAndInsertOntoPQ(forward.pq.size() <= backward.pq.size() ? forward : backward);
+            limit.charge();
+        }
+
+        long pathStart = System.nanoTime();
+
+        // stitch the forward moves to the meeting board onto the backward moves from it,
+        // which are the moves from the goal board to the meeting board undone in reverse order
+        int[] forwardMoves = forward.movesTo(forward.meetingBoard);
+        int[] backwardMoves = backward.movesTo(forward.meetingBoard);
+        int[] directions = Arrays.copyOf(forwardMoves, forwardMoves.length + backwardMoves.length);
+        for (int i = 0; i < backwardMoves.length; i++) {
+            directions[forwardMoves.length + i] = backwardMoves[backwardMoves.length - 1 - i] ^ 1;
+        }
+        MoveSequence solution = new MoveSequence(directions);
+        if (statistics != null) {
+            statistics.retraced(System.nanoTime() - pathStart);
+        }
+        return solution;
+    }
+
+    static Board goalBoard(int n) {
+        int[][] tiles = new int[n][n];
+        for (int index = 0; index < n * n - 1; index++) {
+            tiles[index / n][index % n] = index + 1;
+        }
+        return new Board(tiles);
+    }
+
     // is the initial board solvable? (see below)
     public boolean isSolvable() {
-        return !this.boardsInSolutionPath.isEmpty();
+        return this.solutionMoves != null;
     }
 
     // min number of moves to solve initial board; -1 if unsolvable
     public int moves() {
-        return this.boardsInSolutionPath.size() - 1;
+        if (!this.isSolvable()) {
+            return -1;
+        }
+        return this.solutionMoves.length();
     }
 
     // sequence of boards in a shortest solution; null if unsolvable
@@ -121,10 +446,12 @@ public class Solver {
         if (!this.isSolvable()) {
             return null;
         }
-        return this.boardsInSolutionPath;
+        return this.solutionMoves.replay(this.initial);
     }
 
-    // test client (see below)
+    // test client (see below);
+    // an optional second argument names the heuristic (see Heuristic.named),
+    // and an optional third argument the algorithm (A_STAR, A_STAR_BUCKETS, IDA_STAR, BIDIRECTIONAL_A_STAR or HDA_STAR)
     public static void main(String[] args) {
 
         // create initial board from file
@@ -137,7 +464,9 @@ public class Solver {
         Board initial = new Board(tiles);
 
         // solve the puzzle
-        Solver solver = new Solver(initial);
+        Heuristic heuristic = args.length > 1 ? Heuristic.named(args[1]) : Heuristic.MANHATTAN;
+        Algorithm algorithm = args.length > 2 ? Algorithm.valueOf(args[2]) : Algorithm.A_STAR;
+        Solver solver = new Solver(initial, heuristic, algorithm);
 
         // print solution to standard output
         if (!solver.isSolvable())
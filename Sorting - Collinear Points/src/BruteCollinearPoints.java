@@ -1,6 +1,5 @@
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 // Brute force solution.
 // Write a program BruteCollinearPoints.java that
@@ -17,29 +16,14 @@ public class BruteCollinearPoints {
 
     public BruteCollinearPoints(Point[] points) {    // finds all line segments containing 4 points
 
-        if (points == null) {
-            throw new IllegalArgumentException("Input points array cannot be null");
-        }
-        if (Arrays.asList(points).contains(null)) {
-            throw new IllegalArgumentException("Input points array cannot contain null elements");
-        }
+        // Check the points, and sort a copy of them by natural order so original is not modified
+        Point[] pointsCopy = SortedPoints.sortedCopy(points);
 
-        int n = points.length;
-
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = i + 1; j < n; j++) {
-                if (points[i].compareTo(points[j]) == 0 || points[i].slopeTo(points[j]) == Double.NEGATIVE_INFINITY) {
-                    throw new IllegalArgumentException("Points cannot be the same");
-                }
-            }
-        }
+        int n = pointsCopy.length;
 
         this.lineSegmentList = new ArrayList<>();
         this.countOfSegments = 0;
 
-        Point[] pointsCopy = Arrays.copyOf(points, n);
-        Arrays.sort(pointsCopy);
-
         for (int i = 0; i < n - 3; i++) {
             for (int j = i + 1; j < n - 2; j++) {
                 for (int k = j + 1; k < n - 1; k++) {
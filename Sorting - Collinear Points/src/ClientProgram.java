@@ -26,6 +26,7 @@ public class ClientProgram {
 
         // print and draw the line segments
         // BruteCollinearPoints collinear = new BruteCollinearPoints(points);
+        // HashCollinearPoints collinear = new HashCollinearPoints(points);
         FastCollinearPoints collinear = new FastCollinearPoints(points);
         for (LineSegment segment : collinear.segments()) {
             StdOut.println(segment);
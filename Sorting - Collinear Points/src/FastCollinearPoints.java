@@ -1,6 +1,19 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
 import java.util.List;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // A faster, sorting-based solution.
 // Remarkably, it is possible to solve the problem much faster
@@ -10,6 +23,9 @@ import java.util.Arrays;
 //        Think of p as the origin.
 //        For each other point q, determine the slope it makes with p.
 //        Sort the points according to the slopes they makes with p.
+//        (Each slope is computed once into a primitive array, which is sorted
+//        together with the indices of the points. Each segment is reported by its
+//        smallest point, so only the points larger than p are sorted.)
 //        Check if any 3 (or more) adjacent points in the sorted order
 //        have equal slopes with respect to p.
 //        If so, these points, together with p, are collinear.
@@ -17,72 +33,299 @@ import java.util.Arrays;
 // in turn yields an efficient algorithm to the problem.
 
 public class FastCollinearPoints {
+    private static final int INSERTION_SORT_CUTOFF = 12;
+
+    // ranges of points per thread in the parallel mode; the lower points have more larger points to look at,
+    // so there are several ranges per thread for the threads to balance the work between them
+    private static final int TASKS_PER_THREAD = 8;
+
     private List<LineSegment> lineSegmentList;
     private int countOfSegments;
 
     public FastCollinearPoints(Point[] points) {    // finds all line segments containing 4 or more points
+        this(points, 1);
+    }
 
-        if (points == null) {
-            throw new IllegalArgumentException("Input points array cannot be null");
-        }
-        if (Arrays.asList(points).contains(null)) {
-            throw new IllegalArgumentException("Input points array cannot contain null elements");
+    // Finds all line segments containing 4 or more points, looking from the points in parallel on the given number
+    // of threads. Each fork-join task looks from its own range of points, and the segments are merged in the order
+    // of those ranges, so they are the same, and in the same order, as with one thread.
+    public FastCollinearPoints(Point[] points, int parallelism) {
+
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
         }
 
-        int n = points.length;
+        // Check the points, and sort a copy of them by natural order so original is not modified.
+        // From here on, a point is identified by its index in the copy, which is also its rank.
+        Point[] pointsCopy = SortedPoints.sortedCopy(points);
+        int n = pointsCopy.length;
 
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = i + 1; j < n; j++) {
-                if (points[i].compareTo(points[j]) == 0 || points[i].slopeTo(points[j]) == Double.NEGATIVE_INFINITY) {
-                    throw new IllegalArgumentException("Points cannot be the same");
-                }
+        // The three largest points cannot be the smallest point of a segment, so they are skipped
+        int anchors = Math.max(n - 3, 0);
+        if (parallelism == 1) {
+            this.lineSegmentList = new ArrayList<>();
+            new SegmentFinder(pointsCopy).find(0, anchors, this.lineSegmentList::add);
+        } else {
+            int anchorsPerTask = Math.max(1, anchors / (parallelism * TASKS_PER_THREAD));
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                this.lineSegmentList = pool.invoke(new FindSegmentsTask(pointsCopy, 0, anchors, anchorsPerTask));
+            } finally {
+                pool.shutdown();
             }
         }
+        this.countOfSegments = lineSegmentList.size();
+    }
 
-        this.lineSegmentList = new ArrayList<>();
-        this.countOfSegments = 0;
+    // Streams all line segments containing 4 or more points, in the same order as segments().
+    // The segments of each point are found only when the stream gets to them, so a short-circuiting operation
+    // (such as findFirst, limit or anyMatch) stops the search, and no more than the segments of one point
+    // are held at once. The points are checked right away.
+    public static Stream<LineSegment> streamSegments(Point[] points) {
+        Point[] pointsCopy = SortedPoints.sortedCopy(points);
+        return StreamSupport.stream(new SegmentSpliterator(pointsCopy, 0, Math.max(pointsCopy.length - 3, 0)), false);
+    }
 
-        // Create a copy of the points array so original is not modified
-        Point[] pointsCopy = Arrays.copyOf(points, n);
+    // Finds the segments whose smallest point is in a range of the sorted points,
+    // reusing its scratch arrays from one range to the next.
+    private static final class SegmentFinder {
+        private final Point[] pointsCopy;
 
-        // For every point, check if there are 3 or more other points that have the same slope with the current point
-        for (int p = 0; p < n - 1; p++) {
+        // Scratch arrays shared by the points: the slope each larger point makes with the current point
+        // and the index of that larger point in pointsCopy, and the slope, largest point and
+        // whether a smaller point was found for each run of 3 or more equal slopes
+        private final double[] slopes;
+        private final int[] others;
+        private final double[] runSlopes;
+        private final int[] runLargest;
+        private final boolean[] runSeen;
 
-            Arrays.sort(pointsCopy);
-            Point point = pointsCopy[p];
+        // pointsCopy must be sorted by natural order
+        SegmentFinder(Point[] pointsCopy) {
+            int n = pointsCopy.length;
+            this.pointsCopy = pointsCopy;
+            this.slopes = new double[n];
+            this.others = new int[n];
+            this.runSlopes = new double[n / 3 + 1];
+            this.runLargest = new int[n / 3 + 1];
+            this.runSeen = new boolean[n / 3 + 1];
+        }
+
+        // Passes the segments whose smallest point is pointsCopy[from..to-1] to lineSegments, in order
+        void find(int from, int to, Consumer<LineSegment> lineSegments) {
+            int n = pointsCopy.length;
 
-            Arrays.sort(pointsCopy, point.slopeOrder());
+            // For every point, check if there are 3 or more larger points that have the same slope with the current point
+            for (int p = from; p < to; p++) {
 
-            int start = 1;
-            int end = 1;
+                Point point = pointsCopy[p];
 
-            for (int j = 2; j < n; j++) {
-                double prevSlope = point.slopeTo(pointsCopy[start]);
-                double currentSlope = point.slopeTo(pointsCopy[j]);
+                // Compute the slope to each larger point once, then sort the slopes together with their points
+                int count = 0;
+                for (int q = p + 1; q < n; q++) {
+                    slopes[count] = point.slopeTo(pointsCopy[q]);
+                    others[count] = q;
+                    count++;
+                }
+                sort(slopes, others, 0, count - 1);
 
-                // If slopes are equal, extend the potential line segment to include current point
-                if (Double.compare(currentSlope, prevSlope) == 0) {
-                    end = j;
+                // Collect each run of 3 or more equal slopes, and the largest point in it, where the segment ends.
+                // Indices are ranks in natural order, so keeping the largest index replaces
+                // sorting the points by natural order before every slope sort.
+                int runs = 0;
+                int start = 0;
+                while (start < count) {
+                    int end = start;
+                    int largest = others[start];
+                    while (end + 1 < count && slopes[end + 1] == slopes[start]) {
+                        end++;
+                        largest = Math.max(largest, others[end]);
+                    }
+                    if (end - start >= 2) {
+                        runSlopes[runs] = slopes[start];
+                        runLargest[runs] = largest;
+                        runs++;
+                    }
+                    start = end + 1;
+                }
+                if (runs == 0) {
+                    continue;
                 }
 
-                // When we reach the end of the array or the slopes are different,
-                // it means the potential line segment has ended.
-                // We then check if it is a segment containing 4 or more collinear points that hasn't been added to the list.
-                if ((j == n - 1 || Double.compare(currentSlope, prevSlope) != 0) && (end - start) >= 2) {
-                    if (point.compareTo(pointsCopy[start]) < 0) {
-                        lineSegmentList.add(new LineSegment(point, pointsCopy[end]));
-                        countOfSegments++;
+                // A run is a maximal segment seen for the first time only if no smaller point makes the same slope
+                // with the current point, so that the current point is the smallest point of the segment.
+                // Runs are rare, so the smaller points are only looked at once there is one.
+                Arrays.fill(runSeen, 0, runs, false);
+                for (int q = 0; q < p; q++) {
+                    int run = Arrays.binarySearch(runSlopes, 0, runs, point.slopeTo(pointsCopy[q]));
+                    if (run >= 0) {
+                        runSeen[run] = true;
+                    }
+                }
+                for (int run = 0; run < runs; run++) {
+                    if (!runSeen[run]) {
+                        lineSegments.accept(new LineSegment(point, pointsCopy[runLargest[run]]));
                     }
                 }
+            }
+        }
+    }
+
+    // Streams the segments whose smallest point is in a range of the sorted points, finding the segments
+    // of one point at a time when the stream asks for them. For a parallel stream, it splits off the lower half
+    // of the points left, unless it still holds segments, which would have to come before that half.
+    private static final class SegmentSpliterator implements Spliterator<LineSegment> {
+        private final Point[] pointsCopy;
+        private final Queue<LineSegment> found;
+        private final int to;
+        private int from;
+        private SegmentFinder finder;
+
+        SegmentSpliterator(Point[] pointsCopy, int from, int to) {
+            this.pointsCopy = pointsCopy;
+            this.found = new ArrayDeque<>();
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LineSegment> action) {
+            // created on first use, since each split-off spliterator needs its own scratch arrays
+            if (finder == null) {
+                finder = new SegmentFinder(pointsCopy);
+            }
+            while (found.isEmpty() && from < to) {
+                finder.find(from, from + 1, found::add);
+                from++;
+            }
+            if (found.isEmpty()) {
+                return false;
+            }
+            action.accept(found.remove());
+            return true;
+        }
+
+        @Override
+        public Spliterator<LineSegment> trySplit() {
+            if (!found.isEmpty() || to - from < 2) {
+                return null;
+            }
+            int mid = from + (to - from) / 2;
+            Spliterator<LineSegment> lower = new SegmentSpliterator(pointsCopy, from, mid);
+            from = mid;
+            return lower;
+        }
+
+        // the number of points left to look from, as an estimate of the work left
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
 
-                // If the slopes are different, it means we've moved to a new potential line segment.
-                // Thus, we reset 'start' and 'end' to the current point.
-                if (Double.compare(currentSlope, prevSlope) != 0) {
-                    start = j;
-                    end = j;
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    // Finds the segments whose smallest point is in a range of the sorted points, splitting the range in two
+    // until it is small enough. The segments of the lower half come first, as they would with one thread.
+    private static final class FindSegmentsTask extends RecursiveTask<List<LineSegment>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Point[] pointsCopy;
+        private final int from;
+        private final int to;
+        private final int anchorsPerTask;
+
+        FindSegmentsTask(Point[] pointsCopy, int from, int to, int anchorsPerTask) {
+            this.pointsCopy = pointsCopy;
+            this.from = from;
+            this.to = to;
+            this.anchorsPerTask = anchorsPerTask;
+        }
+
+        @Override
+        protected List<LineSegment> compute() {
+            if (to - from <= anchorsPerTask) {
+                List<LineSegment> lineSegments = new ArrayList<>();
+                new SegmentFinder(pointsCopy).find(from, to, lineSegments::add);
+                return lineSegments;
+            }
+            int mid = from + (to - from) / 2;
+            FindSegmentsTask lower = new FindSegmentsTask(pointsCopy, from, mid, anchorsPerTask);
+            FindSegmentsTask upper = new FindSegmentsTask(pointsCopy, mid, to, anchorsPerTask);
+            upper.fork();
+            List<LineSegment> lineSegments = lower.compute();
+            lineSegments.addAll(upper.join());
+            return lineSegments;
+        }
+    }
+
+    // Sorts slopes[lo..hi] into ascending order, moving others[lo..hi] along with them.
+    // Quicksort with a median-of-three pivot, stopping the scans on equal slopes so that runs of
+    // equal slopes split evenly, and insertion sort for small subarrays.
+    // slopeTo never returns NaN or -0.0, so comparing with < and > agrees with Double.compare.
+    static void sort(double[] slopes, int[] others, int lo, int hi) {
+        while (hi - lo >= INSERTION_SORT_CUTOFF) {
+            swap(slopes, others, lo, medianOfThree(slopes, lo, lo + (hi - lo) / 2, hi));
+            double pivot = slopes[lo];
+            int i = lo;
+            int j = hi + 1;
+            while (true) {
+                while (slopes[++i] < pivot) {
+                    if (i == hi) {
+                        break;
+                    }
+                }
+                while (pivot < slopes[--j]) {
+                    // slopes[lo] is the pivot, so the scan stops there
                 }
+                if (i >= j) {
+                    break;
+                }
+                swap(slopes, others, i, j);
+            }
+            swap(slopes, others, lo, j);
+
+            // Recurse into the smaller side and loop on the larger one, so the stack stays logarithmic
+            if (j - lo < hi - j) {
+                sort(slopes, others, lo, j - 1);
+                lo = j + 1;
+            } else {
+                sort(slopes, others, j + 1, hi);
+                hi = j - 1;
             }
         }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            double slope = slopes[i];
+            int other = others[i];
+            int j = i;
+            while (j > lo && slopes[j - 1] > slope) {
+                slopes[j] = slopes[j - 1];
+                others[j] = others[j - 1];
+                j--;
+            }
+            slopes[j] = slope;
+            others[j] = other;
+        }
+    }
+
+    private static int medianOfThree(double[] slopes, int i, int j, int k) {
+        if (slopes[i] < slopes[j]) {
+            return slopes[j] < slopes[k] ? j : (slopes[i] < slopes[k] ? k : i);
+        }
+        return slopes[k] < slopes[j] ? j : (slopes[k] < slopes[i] ? k : i);
+    }
+
+    private static void swap(double[] slopes, int[] others, int i, int j) {
+        double slope = slopes[i];
+        slopes[i] = slopes[j];
+        slopes[j] = slope;
+        int other = others[i];
+        others[i] = others[j];
+        others[j] = other;
     }
 
     public int numberOfSegments() {                 // the number of line segments
@@ -94,4 +337,44 @@ public class FastCollinearPoints {
         return lineSegmentList.toArray(finalLineSegments);
     }
 
+    // Scaling test: java FastCollinearPoints maxThreads n ...
+    // finds the segments of n random points in the 32768-by-32768 grid of the input files
+    // with 1, 2, 4, ... up to maxThreads threads
+    public static void main(String[] args) {
+        int maxThreads = Integer.parseInt(args[0]);
+        StdRandom.setSeed(42);
+        StdOut.printf("%8s %8s %10s %10s %9s%n", "Points", "Threads", "ms", "Speedup", "Segments");
+        for (int arg = 1; arg < args.length; arg++) {
+            int n = Integer.parseInt(args[arg]);
+            Point[] points = new Point[n];
+            Set<Long> used = new HashSet<>();
+            for (int i = 0; i < n; ) {
+                int x = StdRandom.uniformInt(32768);
+                int y = StdRandom.uniformInt(32768);
+                if (used.add((long) x << 32 | y)) {
+                    points[i++] = new Point(x, y);
+                }
+            }
+
+            // warm up
+            new FastCollinearPoints(points, maxThreads);
+
+            String oneThreadSegments = null;
+            double oneThreadMillis = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                long start = System.nanoTime();
+                FastCollinearPoints collinear = new FastCollinearPoints(points, threads);
+                double millis = (System.nanoTime() - start) / 1e6;
+                String segments = Arrays.toString(collinear.segments());
+                if (threads == 1) {
+                    oneThreadSegments = segments;
+                    oneThreadMillis = millis;
+                } else if (!segments.equals(oneThreadSegments)) {
+                    throw new IllegalStateException("Segments with " + threads + " threads differ from one thread");
+                }
+                StdOut.printf("%8d %8d %10.1f %10.2f %9d%n", n, threads, millis, oneThreadMillis / millis, collinear.numberOfSegments());
+            }
+        }
+    }
+
 }
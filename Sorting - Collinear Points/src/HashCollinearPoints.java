@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// A hashing-based solution.
+// Works like the faster, sorting-based solution, but groups the points by slope
+// in a hash table instead of sorting them.
+// Given a point p, the following method determines
+// whether p is the smallest point of a set of 4 or more collinear points.
+//        Think of p as the origin.
+//        For each larger point q, count the points with each exact slope they make with p
+//        (the slope as a fraction in lowest terms, see Point.slopeKey) in a hash table.
+//        If 3 (or more) points have the same slope, these points, together with p, are collinear.
+//        They form a maximal segment first seen from p unless a smaller point also makes that slope.
+// Each point takes expected linear time instead of linearithmic time.
+// Unlike slopeTo(), exact slopes never round two different slopes to the same value,
+// so whenever slopeTo() tells the slopes apart (for instance for coordinates below 32768),
+// the segments are the same, and in the same order, as those of FastCollinearPoints.
+
+public class HashCollinearPoints {
+    private List<LineSegment> lineSegmentList;
+    private int countOfSegments;
+
+    public HashCollinearPoints(Point[] points) {    // finds all line segments containing 4 or more points
+
+        // Check the points, and sort a copy of them by natural order so original is not modified.
+        // From here on, a point is identified by its index in the copy, which is also its rank.
+        Point[] pointsCopy = SortedPoints.sortedCopy(points);
+
+        int n = pointsCopy.length;
+
+        this.lineSegmentList = new ArrayList<>();
+        this.countOfSegments = 0;
+
+        SlopeTable table = new SlopeTable(pointsCopy);
+        int[] runs = new int[n / 3 + 1];
+        List<Integer> segmentEnds = new ArrayList<>();
+
+        // The three largest points cannot be the smallest point of a segment, so they are skipped
+        for (int p = 0; p < n - 3; p++) {
+
+            Point point = pointsCopy[p];
+
+            // Count the larger points by exact slope, collecting the slots of slopes shared by 3 of them
+            table.clear(p);
+            int numberOfRuns = 0;
+            for (int q = p + 1; q < n; q++) {
+                int slot = table.add(q);
+                if (table.count(slot) == 3) {
+                    runs[numberOfRuns++] = slot;
+                }
+            }
+            if (numberOfRuns == 0) {
+                continue;
+            }
+
+            // Runs are rare, so the smaller points are only looked at once there is one
+            for (int q = 0; q < p; q++) {
+                table.markSmaller(q);
+            }
+
+            // Report the runs no smaller point is on, by their largest point, in the order of their slopes
+            segmentEnds.clear();
+            for (int run = 0; run < numberOfRuns; run++) {
+                if (!table.hasSmaller(runs[run])) {
+                    segmentEnds.add(table.largest(runs[run]));
+                }
+            }
+            segmentEnds.sort(Comparator.comparingDouble(end -> point.slopeTo(pointsCopy[end])));
+            for (int end : segmentEnds) {
+                lineSegmentList.add(new LineSegment(point, pointsCopy[end]));
+                countOfSegments++;
+            }
+        }
+    }
+
+    public int numberOfSegments() {                 // the number of line segments
+        return countOfSegments;
+    }
+
+    public LineSegment[] segments() {                // array of line segments
+        LineSegment[] finalLineSegments = new LineSegment[countOfSegments];
+        return lineSegmentList.toArray(finalLineSegments);
+    }
+
+    // Open-addressing hash table from the exact slope some points make with an origin to the number
+    // of those points, the largest of them, and whether a smaller point makes the same slope,
+    // in parallel primitive arrays. Collisions are resolved by linear probing.
+    // Points are hashed by the double slope, since the same exact slope always rounds to the same double.
+    // Two points are only compared by exact slope key once their double slopes are equal,
+    // so the keys (and their gcds) are rarely computed.
+    // A slot is in use only if its stamp is the current stamp, so clearing the table
+    // just moves on to the next stamp.
+    private static final class SlopeTable {
+        private final Point[] points;
+        private final double[] slopes;
+        private final long[] keys;
+        private final int[] stamps;
+        private final int[] counts;
+        private final int[] largest;
+        private final boolean[] smaller;
+        private final int shift;
+        private int stamp;
+        private Point origin;
+
+        // a table for the slopes some of the given points make with one of them
+        SlopeTable(Point[] points) {
+            // at least twice as many slots as points, so probes stay short
+            int capacity = Integer.highestOneBit(Math.max(2 * points.length, 2) - 1) << 1;
+            this.points = points;
+            this.slopes = new double[capacity];
+            this.keys = new long[capacity];
+            this.stamps = new int[capacity];
+            this.counts = new int[capacity];
+            this.largest = new int[capacity];
+            this.smaller = new boolean[capacity];
+            this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        // empty the table, and measure slopes from the point with the given index from now on
+        void clear(int origin) {
+            this.origin = points[origin];
+            stamp++;
+        }
+
+        // count the point with the given index; points must be added in increasing order
+        int add(int point) {
+            double slope = origin.slopeTo(points[point]);
+            int slot = slot(slope, point);
+            if (stamps[slot] != stamp) {
+                stamps[slot] = stamp;
+                slopes[slot] = slope;
+                keys[slot] = 0;
+                counts[slot] = 0;
+                largest[slot] = point;
+                smaller[slot] = false;
+            }
+            counts[slot]++;
+            largest[slot] = point;
+            return slot;
+        }
+
+        // note that the point with the given index, smaller than all added points,
+        // makes the same slope as the added points, if any added point makes it
+        void markSmaller(int point) {
+            int slot = slot(origin.slopeTo(points[point]), point);
+            if (stamps[slot] == stamp) {
+                smaller[slot] = true;
+            }
+        }
+
+        int count(int slot) {
+            return counts[slot];
+        }
+
+        int largest(int slot) {
+            return largest[slot];
+        }
+
+        boolean hasSmaller(int slot) {
+            return smaller[slot];
+        }
+
+        // the slot holding the exact slope of the point with the given index, or the empty slot where it belongs
+        private int slot(double slope, int point) {
+            int mask = slopes.length - 1;
+            int slot = (int) ((Double.doubleToRawLongBits(slope) * 0x9E3779B97F4A7C15L) >>> shift);
+            long key = 0;
+            while (stamps[slot] == stamp) {
+                if (slopes[slot] == slope) {
+                    if (keys[slot] == 0) {
+                        keys[slot] = origin.slopeKey(points[largest[slot]]);
+                    }
+                    if (key == 0) {
+                        key = origin.slopeKey(points[point]);
+                    }
+                    if (keys[slot] == key) {
+                        return slot;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
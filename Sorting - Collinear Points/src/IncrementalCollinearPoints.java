@@ -0,0 +1,250 @@
+import edu.princeton.cs.algs4.In;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// An incremental solution.
+// Keeps the maximal line segments containing 4 or more points up to date as points are added
+// one at a time, instead of finding all of them again for every new point.
+// When a point r is added, only the lines through r can change.
+//        Think of r as the origin.
+//        For each point q added before, determine the slope it makes with r.
+//        Sort the points according to the slopes they make with r.
+//        Each run of 3 (or more) equal slopes is a line that, together with r, has 4 or more points.
+//        If that line already has a segment, r extends it (unless r lies between its endpoints);
+//        otherwise the line gets a new segment.
+// Every point keeps an index of the segments through it by their exact slope (see Point.slopeKey),
+// so the segment of a line is found from any of its points in constant time.
+// Adding the n-th point takes time proportional to n log n.
+// The segments are the same as those FastCollinearPoints finds for all points added so far.
+
+public class IncrementalCollinearPoints {
+
+    // called with each segment that is new or longer after a point is added
+    public interface SegmentListener {
+        // segment is the new or longer segment; replaced is the segment it extends, or null if it is new
+        void changed(LineSegment segment, LineSegment replaced);
+    }
+
+    // the points on a line with 4 or more of them
+    private static final class Line {
+        private Point smallest;
+        private Point largest;
+
+        LineSegment segment() {
+            return new LineSegment(smallest, largest);
+        }
+    }
+
+    private final SegmentListener listener;
+    private final TreeSet<Point> pointSet;
+    private final List<Point> points;
+    private final List<Map<Long, Line>> linesThrough;
+    private final List<Line> lines;
+
+    // scratch arrays for the slopes the points make with a new point, and the indices of those points
+    private double[] slopes;
+    private int[] others;
+
+    // no points yet; listener (which may be null) is called with each segment that changes
+    public IncrementalCollinearPoints(SegmentListener listener) {
+        this.listener = listener;
+        this.pointSet = new TreeSet<>();
+        this.points = new ArrayList<>();
+        this.linesThrough = new ArrayList<>();
+        this.lines = new ArrayList<>();
+        this.slopes = new double[16];
+        this.others = new int[16];
+    }
+
+    public IncrementalCollinearPoints() {
+        this(null);
+    }
+
+    // Adds a point, extending or creating the segments through it,
+    // and returns the number of segments that are new or longer
+    public int add(Point point) {
+        if (point == null) {
+            throw new IllegalArgumentException("Point cannot be null");
+        }
+        if (!pointSet.add(point)) {
+            throw new IllegalArgumentException("Points cannot be the same");
+        }
+
+        int n = points.size();
+        if (slopes.length < n) {
+            slopes = Arrays.copyOf(slopes, Math.max(n, 2 * slopes.length));
+            others = Arrays.copyOf(others, Math.max(n, 2 * others.length));
+        }
+        points.add(point);
+        linesThrough.add(null);
+
+        // Compute the slope to each point added before once, then sort the slopes together with their points
+        for (int q = 0; q < n; q++) {
+            slopes[q] = point.slopeTo(points.get(q));
+            others[q] = q;
+        }
+        FastCollinearPoints.sort(slopes, others, 0, n - 1);
+
+        // Each run of 3 or more equal slopes is a line with 4 or more points together with the new point
+        int changed = 0;
+        int start = 0;
+        while (start < n) {
+            int end = start;
+            while (end + 1 < n && slopes[end + 1] == slopes[start]) {
+                end++;
+            }
+            if (end - start >= 2 && addToLine(point, n, start, end)) {
+                changed++;
+            }
+            start = end + 1;
+        }
+        return changed;
+    }
+
+    // Adds the new point, with index r, to the line through it and the points others[start..end],
+    // creating the line if it has no segment yet, and returns whether its segment changed
+    private boolean addToLine(Point point, int r, int start, int end) {
+        Point other = points.get(others[start]);
+        long slopeKey = point.slopeKey(other);
+        Map<Long, Line> linesThroughOther = linesThrough.get(others[start]);
+        Line line = linesThroughOther == null ? null : linesThroughOther.get(slopeKey);
+
+        if (line == null) {
+            line = new Line();
+            line.smallest = point;
+            line.largest = point;
+            for (int i = start; i <= end; i++) {
+                include(line, others[i], slopeKey);
+            }
+            include(line, r, slopeKey);
+            lines.add(line);
+            if (listener != null) {
+                listener.changed(line.segment(), null);
+            }
+            return true;
+        }
+
+        LineSegment replaced = line.segment();
+        Point smallest = line.smallest;
+        Point largest = line.largest;
+        include(line, r, slopeKey);
+        if (line.smallest == smallest && line.largest == largest) {
+            return false;
+        }
+        if (listener != null) {
+            listener.changed(line.segment(), replaced);
+        }
+        return true;
+    }
+
+    // adds the point with the given index to the line, and the line to the segments through that point
+    private void include(Line line, int index, long slopeKey) {
+        Point point = points.get(index);
+        if (point.compareTo(line.smallest) < 0) {
+            line.smallest = point;
+        }
+        if (point.compareTo(line.largest) > 0) {
+            line.largest = point;
+        }
+        if (linesThrough.get(index) == null) {
+            linesThrough.set(index, new HashMap<>());
+        }
+        linesThrough.get(index).put(slopeKey, line);
+    }
+
+    public int numberOfPoints() {                   // the number of points added
+        return points.size();
+    }
+
+    public int numberOfSegments() {                 // the number of line segments
+        return lines.size();
+    }
+
+    public LineSegment[] segments() {                // array of line segments, in the order they were first found
+        LineSegment[] finalLineSegments = new LineSegment[lines.size()];
+        for (int i = 0; i < finalLineSegments.length; i++) {
+            finalLineSegments[i] = lines.get(i).segment();
+        }
+        return finalLineSegments;
+    }
+
+    /**
+     * Unit tests the IncrementalCollinearPoints data type.
+     */
+    public static void main(String[] args) {
+
+        IncrementalCollinearPoints collinear = new IncrementalCollinearPoints(
+                (segment, replaced) -> System.out.println("Changed: " + segment + (replaced == null ? " (new)" : " (was " + replaced + ")")));
+
+        // Test 1: Three collinear points do not make a segment
+        System.out.println("Test 1: Add three collinear points");
+        collinear.add(new Point(0, 0));
+        collinear.add(new Point(2, 2));
+        collinear.add(new Point(4, 4));
+        System.out.println("Segments: " + collinear.numberOfSegments()); // Expected: 0
+
+        // Test 2: The fourth point creates a segment
+        System.out.println("\nTest 2: Add a fourth collinear point");
+        int changed = collinear.add(new Point(6, 6)); // Expected: Changed: (0, 0) -> (6, 6) (new)
+        System.out.println("Changed segments: " + changed); // Expected: 1
+
+        // Test 3: A point beyond an endpoint extends the segment
+        System.out.println("\nTest 3: Add a point beyond an endpoint");
+        changed = collinear.add(new Point(8, 8)); // Expected: Changed: (0, 0) -> (8, 8) (was (0, 0) -> (6, 6))
+        System.out.println("Changed segments: " + changed); // Expected: 1
+
+        // Test 4: A point between the endpoints does not change the segment
+        System.out.println("\nTest 4: Add a point between the endpoints");
+        changed = collinear.add(new Point(3, 3));
+        System.out.println("Changed segments: " + changed); // Expected: 0
+        System.out.println("Segments: " + Arrays.toString(collinear.segments())); // Expected: [(0, 0) -> (8, 8)]
+
+        // Test 5: A point can create a segment on another line through the points
+        System.out.println("\nTest 5: Add points on a crossing line");
+        collinear.add(new Point(4, 0));
+        collinear.add(new Point(4, 2));
+        changed = collinear.add(new Point(4, 6)); // Expected: Changed: (4, 0) -> (4, 6) (new)
+        System.out.println("Changed segments: " + changed); // Expected: 1
+        System.out.println("Segments: " + collinear.numberOfSegments()); // Expected: 2
+
+        // Test 6: Adding the same point again is an error
+        System.out.println("\nTest 6: Add the same point again");
+        try {
+            collinear.add(new Point(4, 6));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Exception: " + e.getMessage()); // Expected: Exception: Points cannot be the same
+        }
+
+        // Test 7: Adding the points of a file one at a time finds the same segments as FastCollinearPoints
+        if (args.length > 0) {
+            System.out.println("\nTest 7: Add the points of " + args[0] + " one at a time");
+            In in = new In(args[0]);
+            int n = in.readInt();
+            Point[] points = new Point[n];
+            IncrementalCollinearPoints incremental = new IncrementalCollinearPoints();
+            for (int i = 0; i < n; i++) {
+                points[i] = new Point(in.readInt(), in.readInt());
+                incremental.add(points[i]);
+            }
+            String[] expected = segmentStrings(new FastCollinearPoints(points).segments());
+            String[] found = segmentStrings(incremental.segments());
+            System.out.println("Same segments: " + Arrays.equals(expected, found)); // Expected: true
+        }
+
+        System.out.println("\nAll tests completed!");
+    }
+
+    private static String[] segmentStrings(LineSegment[] segments) {
+        String[] strings = new String[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            strings[i] = segments[i].toString();
+        }
+        Arrays.sort(strings);
+        return strings;
+    }
+}
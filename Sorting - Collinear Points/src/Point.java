@@ -62,6 +62,50 @@ public final class Point implements Comparable<Point> {
         return 1.0 * (that.y - this.y) / (that.x - this.x) + 0.0;
     }
 
+    /**
+     * Returns an exact key for the slope between this point and the specified point.
+     * Two points make the same slope with this point if and only if they have the
+     * same key, whereas slopeTo() rounds the slope to a double, so two slopes that
+     * differ by less than its precision can compare equal.
+     * The key packs the slope as the fraction dy / dx in lowest terms, with dx
+     * positive, into the high and low 32 bits of a long. A vertical slope is 1 / 0,
+     * and the key of a point with an equal point is 0.
+     * Like slopeTo(), it assumes the differences of the coordinates fit in an int.
+     *
+     * @param that the other point
+     * @return the exact slope key between this point and the specified point
+     */
+    long slopeKey(Point that) {
+        int dy = that.y - this.y;
+        int dx = that.x - this.x;
+        if (dx == 0) {
+            return dy == 0 ? 0 : 1L << 32;
+        }
+        if (dy == 0) {
+            return 1;
+        }
+        if (dx < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        int gcd = gcd(Math.abs(dy), dx);
+        return (long) (dy / gcd) << 32 | (dx / gcd);
+    }
+
+    // greatest common divisor of two positive integers, by the binary GCD algorithm
+    private static int gcd(int a, int b) {
+        int shift = Integer.numberOfTrailingZeros(a | b);
+        a >>= Integer.numberOfTrailingZeros(a);
+        do {
+            // a is odd: replace the larger of a and b by their difference, without branches
+            b >>= Integer.numberOfTrailingZeros(b);
+            int difference = b - a;
+            a = Math.min(a, b);
+            b = Math.abs(difference);
+        } while (b != 0);
+        return a << shift;
+    }
+
     /**
      * Compares two points by y-coordinate, breaking ties by x-coordinate.
      * Formally, the invoking point (x0, y0) is less than the argument point
@@ -160,6 +204,19 @@ public final class Point implements Comparable<Point> {
         int comparatorResult2 = comparator.compare(point8, point7);
         System.out.println("Comparator result 2: " + comparatorResult2); // Expected: +1 (as point8 is greater than point7 in terms of slope with point6)
 
+        // Test 4: Check exact slope keys
+        System.out.println("\nTest 4: Check exact slope keys");
+        Point point9 = new Point(8, 9);
+        Point point10 = new Point(0, 1);
+        System.out.println("Same slope: " + (point6.slopeKey(point7) == point6.slopeKey(point9))); // Expected: true (as point7 and point9 are on the same line through point6)
+        System.out.println("Same slope 2: " + (point6.slopeKey(point7) == point6.slopeKey(point10))); // Expected: true (as point10 is on that line too, on the other side of point6)
+        System.out.println("Same slope 3: " + (point6.slopeKey(point7) == point6.slopeKey(point8))); // Expected: false (as point8 is vertical from point6)
+        Point point11 = new Point(0, 0);
+        Point point12 = new Point(1_000_000_000, 999_999_999);
+        Point point13 = new Point(999_999_999, 999_999_998);
+        System.out.println("Double slopes equal: " + (point11.slopeTo(point12) == point11.slopeTo(point13))); // Expected: true (as the two slopes round to the same double)
+        System.out.println("Exact slopes equal: " + (point11.slopeKey(point12) == point11.slopeKey(point13))); // Expected: false (as 999999999/1000000000 and 999999998/999999999 are different)
+
         System.out.println("\nAll tests completed!");
     }
 
@@ -0,0 +1,33 @@
+import java.util.Arrays;
+
+// Input validation shared by the collinear points detectors.
+// Checks the points by sorting a copy of them by natural order and scanning it once,
+// since equal points are adjacent once sorted, which takes linearithmic time
+// instead of comparing every pair. The detectors sort the points by natural order anyway,
+// so they use the sorted copy instead of sorting the points again.
+
+final class SortedPoints {
+
+    private SortedPoints() {
+    }
+
+    // a copy of points sorted by natural order; throws an IllegalArgumentException
+    // if points is null, contains null, or contains the same point more than once
+    static Point[] sortedCopy(Point[] points) {
+        if (points == null) {
+            throw new IllegalArgumentException("Input points array cannot be null");
+        }
+        if (Arrays.asList(points).contains(null)) {
+            throw new IllegalArgumentException("Input points array cannot contain null elements");
+        }
+
+        Point[] pointsCopy = Arrays.copyOf(points, points.length);
+        Arrays.sort(pointsCopy);
+        for (int i = 1; i < pointsCopy.length; i++) {
+            if (pointsCopy[i - 1].compareTo(pointsCopy[i]) == 0) {
+                throw new IllegalArgumentException("Points cannot be the same");
+            }
+        }
+        return pointsCopy;
+    }
+}